@@ -1,19 +1,57 @@
 package com.documentor.agent;
 
+import com.documentor.agent.config.DocumentorConfig;
+import com.documentor.agent.config.RunOptions;
+import com.documentor.agent.model.BuildModule;
+import com.documentor.agent.model.ClassGroup;
+import com.documentor.agent.model.DocumentationPlan;
 import com.documentor.agent.model.JavaClassDoc;
+import com.documentor.agent.model.PromptFidelity;
+import com.documentor.agent.model.RenderMode;
+import com.documentor.agent.model.Shard;
 import com.documentor.agent.service.AzureOpenAiService;
+import com.documentor.agent.service.BuildModuleService;
+import com.documentor.agent.service.CheckpointJournalService;
+import com.documentor.agent.service.DeadlineService;
 import com.documentor.agent.service.DocumentationGeneratorService;
+import com.documentor.agent.service.DocumentationPlannerService;
+import com.documentor.agent.service.DocumentationPromptService;
+import com.documentor.agent.service.DocumentationTaskService;
 import com.documentor.agent.service.GitHubService;
 import com.documentor.agent.service.JavaParserService;
+import com.documentor.agent.service.MarkdownValidationService;
+import com.documentor.agent.service.MeteredChatModel;
+import com.documentor.agent.service.MethodExampleService;
+import com.documentor.agent.service.PromptFidelityService;
+import com.documentor.agent.service.ShardService;
+import com.documentor.agent.service.SourceDiscoveryService;
+import com.documentor.agent.service.StructuralDeduplicationService;
+import com.documentor.agent.service.TaskGraphScheduler;
+import com.documentor.agent.service.TokenUsageService;
+import com.documentor.agent.service.WatchModeService;
+import com.documentor.agent.util.Tracing;
+import com.github.javaparser.ParserConfiguration.LanguageLevel;
+import dev.langchain4j.model.chat.ChatLanguageModel;
 import io.github.cdimascio.dotenv.Dotenv;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
 import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
+import java.util.stream.Collectors;
 
 /**
  * Main application class for the Java Documentation AI Agent.
@@ -22,76 +60,338 @@ import java.util.regex.Pattern;
  */
 public class DocumentorApplication {
     private static final Logger logger = LoggerFactory.getLogger(DocumentorApplication.class);
+    private static final int LARGEST_PROMPTS_IN_PLAN = 10;
+    private static final int MOST_EXPENSIVE_CLASSES_IN_REPORT = 10;
     
     /**
      * Main entry point for the application.
      * 
-     * @param args Command line arguments (expects GitHub repository URL)
+     * @param args Command line arguments (expects GitHub repository URL or local path, optionally --plan, --resume, --deadline, --watch, --shard or --merge-shards)
      */
     public static void main(String[] args) {
+        // The deadline covers the whole run, including cloning and parsing
+        Instant startedAt = Instant.now();
         try {
             // Validate command line arguments
-            if (args.length == 0) {
-                System.err.println("Error: GitHub repository URL is required");
-                System.err.println("Usage: java -jar java-documentation-agent.jar https://github.com/username/repo.git");
+            RunOptions options = parseArguments(args);
+            if (options == null) {
+                System.err.println("Error: GitHub repository URL or local path is required");
+                System.err.println("Usage: java -jar java-documentation-agent.jar [--plan] [--resume] [--deadline 45m] [--watch] [--shard 1/4 | --merge-shards] <https://github.com/username/repo.git | /path/to/checkout>");
                 System.exit(1);
             }
             
-            String repoUrl = args[0];
+            String repoUrl = options.getRepositoryLocation();
+            boolean localCheckout = isLocalCheckout(repoUrl);
+            if (options.isWatch() && (!localCheckout || options.isPlanOnly())) {
+                throw new IllegalArgumentException("--watch needs a local checkout and cannot be combined with --plan");
+            }
+            if (options.isMergeShards() && (options.getShard() != null || options.isPlanOnly() || options.isWatch())) {
+                throw new IllegalArgumentException("--merge-shards cannot be combined with --shard, --plan or --watch");
+            }
+            if (options.isWatch() && options.getShard() != null) {
+                throw new IllegalArgumentException("--watch cannot be combined with --shard");
+            }
             logger.info("Starting documentation generation for repository: {}", repoUrl);
             
             // Extract repository name from URL
-            String repoName = extractRepositoryName(repoUrl);
+            String repoName = localCheckout
+                ? Path.of(repoUrl).toAbsolutePath().normalize().getFileName().toString()
+                : extractRepositoryName(repoUrl);
             
             // Load environment variables from .env file
             logger.info("Loading environment variables from .env file");
             Dotenv dotenv = Dotenv.configure()
                 .ignoreIfMissing()
                 .load();
+            DocumentorConfig config = new DocumentorConfig(dotenv);
+            
+            // Record a timeline of the run; spans are cheap enough to leave on
+            if (config.getBoolean("DOCUMENTOR_TRACE", true)) {
+                Tracing.enable();
+            }
             
             // Initialize services
             logger.info("Initializing services");
-            AzureOpenAiService azureOpenAiService = new AzureOpenAiService(dotenv);
             GitHubService gitHubService = new GitHubService(dotenv);
-            JavaParserService javaParserService = new JavaParserService();
-            DocumentationGeneratorService docGeneratorService = 
-                new DocumentationGeneratorService(azureOpenAiService.getChatModel());
+            SourceDiscoveryService sourceDiscoveryService = new SourceDiscoveryService(config);
+            // Parse signatures only unless every class prompt is rendered up front (--plan)
+            boolean signaturesOnly = !options.isPlanOnly()
+                && config.getString("DOCUMENTOR_PARSE_MODE", "signatures").equalsIgnoreCase("signatures");
+            JavaParserService javaParserService = new JavaParserService(
+                LanguageLevel.valueOf(config.getString("DOCUMENTOR_JAVA_LANGUAGE_LEVEL", "JAVA_17")), signaturesOnly);
+            PromptFidelityService promptFidelityService = new PromptFidelityService(javaParserService,
+                PromptFidelity.valueOf(config.getString("DOCUMENTOR_PROMPT_FIDELITY", "PUBLIC_SURFACE").toUpperCase(Locale.ROOT)),
+                config.getInt("DOCUMENTOR_PROMPT_FIDELITY_FULL_BELOW_TOKENS", 500));
+            StructuralDeduplicationService deduplicationService =
+                new StructuralDeduplicationService(config.getBoolean("DOCUMENTOR_DEDUPLICATE", true));
+            DocumentationPromptService promptService = new DocumentationPromptService();
+            BuildModuleService buildModuleService = new BuildModuleService();
+            ShardService shardService = new ShardService();
+            int concurrency = Math.max(1, config.getInt("DOCUMENTOR_CONCURRENCY", 4));
             
-            // Clone the repository
-            logger.info("Cloning repository: {}", repoUrl);
+            // Clone the repository, or read a local checkout in place
             Path repoPath = null;
+            boolean completed = false;
             try {
-                repoPath = gitHubService.cloneRepository(repoUrl);
+                if (localCheckout) {
+                    logger.info("Reading local checkout: {}", repoUrl);
+                } else {
+                    logger.info("Cloning repository: {}", repoUrl);
+                    // Shards running as local processes each need their own clone, which they delete when done
+                    Shard shard = options.getShard();
+                    repoPath = gitHubService.cloneRepository(repoUrl, options.isResume(),
+                        shard != null ? "-shard-" + shard.getIndex() + "-of-" + shard.getCount() : null);
+                }
+                Path sourcePath = localCheckout ? Path.of(repoUrl) : repoPath;
                 
                 // Find all Java files
                 logger.info("Finding Java files in repository");
-                List<Path> javaFiles = javaParserService.findJavaFiles(repoPath);
+                List<Path> javaFiles;
+                try (Tracing.Span span = Tracing.span("discover", "discovery")) {
+                    javaFiles = sourceDiscoveryService.discoverJavaFiles(sourcePath);
+                    span.arg("files", javaFiles.size());
+                }
                 logger.info("Found {} Java files", javaFiles.size());
                 
-                // Parse Java files
+                // Parse Java files concurrently, largest first, keeping discovery order in the result
                 logger.info("Parsing Java files");
+                JavaClassDoc[] parsed = new JavaClassDoc[javaFiles.size()];
+                TaskGraphScheduler parseGraph = new TaskGraphScheduler("parse", concurrency);
+                for (int i = 0; i < javaFiles.size(); i++) {
+                    int index = i;
+                    Path javaFile = javaFiles.get(i);
+                    parseGraph.addTask("parse:" + javaFile, Files.size(javaFile), List.of(), () -> {
+                        parsed[index] = javaParserService.parseJavaFile(javaFile);
+                        if (parsed[index] != null) {
+                            logger.info("Parsed class: {}", parsed[index].getFullyQualifiedName());
+                        }
+                    });
+                }
+                parseGraph.execute();
                 List<JavaClassDoc> classes = new ArrayList<>();
-                for (Path javaFile : javaFiles) {
-                    JavaClassDoc classDoc = javaParserService.parseJavaFile(javaFile);
-                    if (classDoc != null) {
-                        classes.add(classDoc);
-                        logger.info("Parsed class: {}", classDoc.getFullyQualifiedName());
+                Map<Path, JavaClassDoc> classesByFile = new HashMap<>();
+                for (int i = 0; i < parsed.length; i++) {
+                    if (parsed[i] != null) {
+                        classes.add(parsed[i]);
+                        classesByFile.put(javaFiles.get(i), parsed[i]);
                     }
                 }
                 logger.info("Successfully parsed {} classes", classes.size());
                 
+                // A multi-module build is documented per module; otherwise all classes form one unit
+                List<BuildModule> modules = buildModuleService.detectModules(sourcePath);
+                boolean multiModule = !modules.isEmpty();
+                Map<String, List<Path>> filesByModule = new LinkedHashMap<>();
+                if (multiModule) {
+                    buildModuleService.assignFiles(modules, javaFiles, sourcePath)
+                        .forEach((module, files) -> filesByModule.put(module.getName(), files));
+                } else {
+                    filesByModule.put("", javaFiles);
+                }
+                Map<String, List<JavaClassDoc>> classesByModule = new LinkedHashMap<>();
+                filesByModule.forEach((module, files) -> classesByModule.put(module, files.stream()
+                    .map(classesByFile::get)
+                    .filter(classDoc -> classDoc != null)
+                    .collect(Collectors.toList())));
+                
+                // Group structurally identical classes so each shape is documented by the LLM once;
+                // groups stay within a module, since derived pages are written next to their representative
+                Map<String, List<ClassGroup>> groupsByModule = new LinkedHashMap<>();
+                try (Tracing.Span span = Tracing.span("group", "dedup")) {
+                    classesByModule.forEach((module, moduleClasses) ->
+                        groupsByModule.put(module, deduplicationService.group(moduleClasses)));
+                    span.arg("classes", classes.size())
+                        .arg("groups", groupsByModule.values().stream().mapToInt(List::size).sum());
+                }
+                
+                // Every shard parses and groups the whole checkout, then keeps only the groups it owns
+                Shard shard = options.getShard();
+                if (shard != null) {
+                    int groupCount = groupsByModule.values().stream().mapToInt(List::size).sum();
+                    groupsByModule.replaceAll((module, groups) -> groups.stream()
+                        .filter(group -> shardService.selects(shard, group))
+                        .collect(Collectors.toList()));
+                    logger.info("Shard {}/{} documents {} of {} class groups", shard.getIndex(), shard.getCount(),
+                        groupsByModule.values().stream().mapToInt(List::size).sum(), groupCount);
+                }
+                
+                DocumentationPlannerService plannerService = new DocumentationPlannerService(config, promptService);
+                if (options.isPlanOnly()) {
+                    // Render every prompt the run would send and estimate it without calling Azure OpenAI:
+                    // one overview per module, one class page per group, and for a shard only its class pages
+                    RenderMode planMode = renderMode(config);
+                    List<JavaClassDoc> documentedClasses = groupsByModule.values().stream()
+                        .flatMap(List::stream)
+                        .map(ClassGroup::getRepresentative)
+                        .collect(Collectors.toList());
+                    if (planMode == RenderMode.FULL) {
+                        documentedClasses.forEach(promptFidelityService::prepare);
+                    } else if (planMode == RenderMode.ENRICHED) {
+                        documentedClasses.forEach(classDoc -> javaParserService.materializeSource(classDoc, PromptFidelity.SIGNATURES));
+                    }
+                    Map<String, List<JavaClassDoc>> overviews = new LinkedHashMap<>();
+                    if (shard == null) {
+                        classesByModule.forEach((module, moduleClasses) ->
+                            overviews.put(multiModule ? repoName + "/" + module : repoName, moduleClasses));
+                    }
+                    DocumentationPlan plan = plannerService.plan(repoName, classes, overviews, documentedClasses,
+                        planMode, shard == null);
+                    System.out.println(plannerService.formatReport(plan, LARGEST_PROMPTS_IN_PLAN));
+                    System.out.println(promptFidelityService.formatReport());
+                    return;
+                }
+                
+                // Shards may run as local processes sharing the state directory, so each keeps its own journal
+                String stateName = repoName.replace('/', '_')
+                    + (shard != null ? "-shard-" + shard.getIndex() + "-of-" + shard.getCount() : "");
+                
+                // Template rendering needs no Azure OpenAI connection at all; every call is metered.
+                // Repository usage is kept per repository only, so the shards and the merge step share one cap
+                RenderMode renderMode = renderMode(config);
+                TokenUsageService tokenUsageService = new TokenUsageService(
+                    config.getLong("DOCUMENTOR_TOKEN_BUDGET", 0), config.getLong("DOCUMENTOR_REPOSITORY_TOKEN_BUDGET", 0),
+                    stateDirectory(config).resolve("usage").resolve(repoName.replace('/', '_') + ".properties"));
+                ChatLanguageModel chatModel = renderMode == RenderMode.TEMPLATE
+                    ? null
+                    : new MeteredChatModel(new AzureOpenAiService(dotenv).getChatModel(), tokenUsageService, concurrency);
+                DocumentationGeneratorService docGeneratorService = 
+                    new DocumentationGeneratorService(chatModel, promptService);
+                
                 // Create output directory for documentation
                 Path outputPath = Path.of("docs");
                 
-                // Generate documentation
-                logger.info("Generating documentation");
-                docGeneratorService.generateProjectOverview(classes, repoName, outputPath);
+                // Shard manifests record the sources they were built from, so stale output is not merged
+                String sourceHash = shard != null || options.isMergeShards()
+                    ? buildModuleService.contentHash(javaFiles, sourcePath) : null;
+                if (shard != null) {
+                    shardService.discardManifest(outputPath, shard);
+                }
                 
-                for (JavaClassDoc classDoc : classes) {
-                    docGeneratorService.generateClassDocumentation(classDoc, outputPath);
+                // The merge step only runs once the pages of every class were written by some shard
+                Map<String, String> mergedManifest = options.isMergeShards()
+                    ? shardService.mergeManifests(outputPath, sourceHash) : Map.of();
+                if (options.isMergeShards()) {
+                    List<String> missing = shardService.findMissingPages(mergedManifest, classes, outputPath);
+                    if (!missing.isEmpty()) {
+                        throw new IllegalStateException("Shard outputs are missing the pages of " + missing.size()
+                            + " classes, e.g. " + missing.subList(0, Math.min(5, missing.size()))
+                            + "; rerun the shards against the same checkout");
+                    }
                 }
-                  docGeneratorService.generateGettingStartedGuide(classes, repoName, outputPath);
-                docGeneratorService.generateFaqAndTroubleshooting(classes, repoName, outputPath);
+                
+                // Record completed work units so an interrupted run can be resumed
+                Path journalFile = stateDirectory(config).resolve("journal").resolve(stateName + ".log");
+                try (CheckpointJournalService journal = new CheckpointJournalService(journalFile, options.isResume(),
+                        config.getInt("DOCUMENTOR_JOURNAL_BATCH_SIZE", 16),
+                        Duration.ofMillis(config.getLong("DOCUMENTOR_JOURNAL_FLUSH_MS", 2000)));
+                     MethodExampleService methodExampleService = chatModel == null ? null : new MethodExampleService(
+                        chatModel, promptService,
+                        stateDirectory(config).resolve("cache").resolve("examples"),
+                        concurrency)) {
+                    docGeneratorService.setCheckpointJournal(journal);
+                    DeadlineService deadlineService = null;
+                    if (options.getDeadline() != null) {
+                        deadlineService = new DeadlineService(startedAt.plus(options.getDeadline()),
+                            Duration.ofSeconds(config.getLong("DOCUMENTOR_DEADLINE_MARGIN_SECONDS", 30)), concurrency,
+                            config.getDouble("AZURE_OPENAI_OUTPUT_TOKENS_PER_SECOND", 50.0),
+                            config.getDouble("AZURE_OPENAI_REQUEST_OVERHEAD_SECONDS", 1.0));
+                        docGeneratorService.setDeadlineService(deadlineService);
+                    }
+                    if (config.getBoolean("DOCUMENTOR_METHOD_EXAMPLES", true)) {
+                        docGeneratorService.setMethodExampleService(methodExampleService);
+                    }
+                    if (chatModel != null && config.getBoolean("DOCUMENTOR_VALIDATE_DOCS", true)) {
+                        docGeneratorService.setMarkdownValidationService(
+                            new MarkdownValidationService(chatModel, promptService));
+                        docGeneratorService.setPromptFidelityService(promptFidelityService);
+                    }
+                    
+                    // Generate documentation as a graph: independent pages run concurrently,
+                    // package summaries wait for the class pages they are built from
+                    logger.info("Generating documentation");
+                    TaskGraphScheduler generationGraph = new TaskGraphScheduler("documentation", concurrency);
+                    DocumentationTaskService taskService = new DocumentationTaskService(docGeneratorService,
+                        javaParserService, deduplicationService, promptFidelityService, plannerService);
+                    taskService.setDeadlineService(deadlineService);
+                    taskService.setTokenUsageService(tokenUsageService);
+                    taskService.setRenderMode(renderMode);
+                    if (shard == null) {
+                        taskService.addGuideTasks(generationGraph, classes, repoName, outputPath);
+                    }
+                    
+                    // Modules share the graph's workers, so large and small modules are interleaved
+                    Path moduleStateFile = stateDirectory(config).resolve("modules")
+                        .resolve(repoName.replace('/', '_') + ".properties");
+                    Map<String, String> previousHashes = buildModuleService.loadModuleHashes(moduleStateFile);
+                    Map<String, String> moduleHashes = new LinkedHashMap<>();
+                    boolean sharded = shard != null || options.isMergeShards();
+                    boolean skipUnchanged = !sharded && config.getBoolean("DOCUMENTOR_SKIP_UNCHANGED_MODULES", true);
+                    Map<String, String> shardManifest = new TreeMap<>();
+                    for (Map.Entry<String, List<ClassGroup>> entry : groupsByModule.entrySet()) {
+                        String module = entry.getKey();
+                        String taskPrefix = multiModule ? "module:" + module + ":" : "";
+                        String title = multiModule ? repoName + "/" + module : repoName;
+                        Path moduleOutputPath = multiModule ? outputPath.resolve("modules").resolve(module) : outputPath;
+                        if (shard != null) {
+                            // A shard writes class pages only; the merge step writes the pages built from several classes
+                            for (ClassGroup group : entry.getValue()) {
+                                taskService.addClassTask(generationGraph, taskPrefix, group, moduleOutputPath);
+                                shardService.addPages(shardManifest, group, outputPath, moduleOutputPath);
+                            }
+                            continue;
+                        }
+                        if (options.isMergeShards()) {
+                            taskService.addSummaryTasks(generationGraph, taskPrefix, title,
+                                classesByModule.get(module), moduleOutputPath);
+                            continue;
+                        }
+                        if (multiModule) {
+                            // A module rendered from templates is not up to date for a run that uses the LLM
+                            String hash = renderMode + ":" + buildModuleService.contentHash(filesByModule.get(module), sourcePath);
+                            moduleHashes.put(module, hash);
+                            if (skipUnchanged && hash.equals(previousHashes.get(module))
+                                && Files.exists(moduleOutputPath.resolve("README.md"))) {
+                                logger.info("Skipping module {}: sources unchanged since the last run", module);
+                                continue;
+                            }
+                        }
+                        taskService.addClassDocumentationTasks(generationGraph, taskPrefix, title,
+                            classesByModule.get(module), entry.getValue(), moduleOutputPath);
+                    }
+                    if (multiModule && shard == null) {
+                        generationGraph.addTask("index", 1, List.of(),
+                            () -> docGeneratorService.generateModuleIndex(repoName, classesByModule, outputPath));
+                    }
+                    generationGraph.execute();
+                    if (multiModule && !sharded) {
+                        buildModuleService.saveModuleHashes(moduleStateFile, moduleHashes);
+                    }
+                    if (shard != null) {
+                        // Written last, so a manifest only exists for a shard whose pages are complete
+                        shardService.writeManifest(shardService.manifestFile(outputPath, shard), shardManifest, sourceHash,
+                            "Class pages of shard " + shard.getIndex() + " of " + shard.getCount());
+                    } else if (options.isMergeShards()) {
+                        shardService.writeManifest(outputPath.resolve("shards").resolve("manifest.properties"),
+                            mergedManifest, sourceHash, "Class pages of all shards");
+                    }
+                    logger.info(promptFidelityService.formatReport());
+                    if (deadlineService != null) {
+                        logger.info(deadlineService.formatReport());
+                    }
+                    if (chatModel != null) {
+                        logger.info(tokenUsageService.formatReport(MOST_EXPENSIVE_CLASSES_IN_REPORT));
+                    }
+                    
+                    if (options.isWatch()) {
+                        // The deadline bounds the initial run; updates are small and always generated in full
+                        docGeneratorService.setDeadlineService(null);
+                        taskService.setDeadlineService(null);
+                        new WatchModeService(sourceDiscoveryService, javaParserService, deduplicationService, buildModuleService,
+                            taskService, docGeneratorService, Duration.ofMillis(config.getLong("DOCUMENTOR_WATCH_DEBOUNCE_MS", 500)),
+                            concurrency).watch(sourcePath, repoName, outputPath, modules, javaFiles, classesByFile);
+                    }
+                }
+                completed = true;
                 
                 Path readmePath = outputPath.resolve("README.md");
                 Path absoluteReadmePath = readmePath.toAbsolutePath();
@@ -103,10 +403,16 @@ public class DocumentorApplication {
                 System.out.println("View README directly: " + readmePath.toUri().toString());
                 
             } finally {
-                // We don't clean up the repository since it's stored in a permanent location
-                if (repoPath != null) {
+                // Keep the clone of a failed run so that --resume can continue without re-cloning
+                if (repoPath != null && (completed || options.isPlanOnly())) {
                     logger.info("Cleaning up temporary files");
                     gitHubService.cleanupDirectory(repoPath);
+                } else if (repoPath != null) {
+                    logger.info("Keeping clone at {}; rerun with --resume to continue", repoPath);
+                }
+                if (Tracing.isEnabled()) {
+                    Tracing.writeTo(stateDirectory(config).resolve("traces")
+                        .resolve(repoName.replace('/', '_') + "-" + System.currentTimeMillis() + ".json"));
                 }
             }
             
@@ -117,6 +423,135 @@ public class DocumentorApplication {
         }
     }
     
+    /**
+     * Parses the command line arguments.
+     * 
+     * @param args Command line arguments
+     * @return Parsed options, or null if no repository location was given
+     */
+    private static RunOptions parseArguments(String[] args) {
+        RunOptions.RunOptionsBuilder builder = RunOptions.builder();
+        String location = null;
+        for (int i = 0; i < args.length; i++) {
+            String arg = args[i];
+            if (arg.equals("--plan")) {
+                builder.planOnly(true);
+            } else if (arg.equals("--resume")) {
+                builder.resume(true);
+            } else if (arg.equals("--deadline") && i + 1 < args.length) {
+                builder.deadline(parseDuration(args[++i]));
+            } else if (arg.startsWith("--deadline=")) {
+                builder.deadline(parseDuration(arg.substring("--deadline=".length())));
+            } else if (arg.equals("--watch")) {
+                builder.watch(true);
+            } else if (arg.equals("--shard") && i + 1 < args.length) {
+                builder.shard(parseShard(args[++i]));
+            } else if (arg.startsWith("--shard=")) {
+                builder.shard(parseShard(arg.substring("--shard=".length())));
+            } else if (arg.equals("--merge-shards")) {
+                builder.mergeShards(true);
+            } else if (arg.startsWith("--")) {
+                logger.warn("Ignoring unknown option: {}", arg);
+            } else if (location == null) {
+                location = arg;
+            }
+        }
+        if (location == null) {
+            return null;
+        }
+        return builder.repositoryLocation(location).build();
+    }
+    
+    /**
+     * Gets how pages are rendered: "llm" (default) generates every page with the LLM, "enrich" renders
+     * class pages from the parsed model and uses the LLM only for overviews and examples, and
+     * "template" renders everything from the parsed model without calling the LLM.
+     * 
+     * @param config Agent configuration
+     * @return Richest render mode of the run
+     * @throws IllegalArgumentException If the configured mode is unknown
+     */
+    private static RenderMode renderMode(DocumentorConfig config) {
+        String mode = config.getString("DOCUMENTOR_RENDER_MODE", "llm").trim().toLowerCase(Locale.ROOT);
+        switch (mode) {
+            case "llm":
+                return RenderMode.FULL;
+            case "enrich":
+                return RenderMode.ENRICHED;
+            case "template":
+                return RenderMode.TEMPLATE;
+            default:
+                throw new IllegalArgumentException("Unknown DOCUMENTOR_RENDER_MODE: " + mode + " (expected llm, enrich or template)");
+        }
+    }
+    
+    /**
+     * Parses a duration given as e.g. "45m", "1h30m", "90s" or in ISO-8601 form ("PT45M").
+     * 
+     * @param text Duration text
+     * @return Parsed duration
+     * @throws IllegalArgumentException If the text is not a positive duration
+     */
+    private static Duration parseDuration(String text) {
+        String normalized = text.trim().toUpperCase(Locale.ROOT);
+        try {
+            Duration duration = Duration.parse(normalized.startsWith("P") ? normalized : "PT" + normalized);
+            if (duration.isNegative() || duration.isZero()) {
+                throw new IllegalArgumentException("Deadline must be positive: " + text);
+            }
+            return duration;
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid duration: " + text + " (expected e.g. 45m, 1h30m or 90s)", e);
+        }
+    }
+    
+    /**
+     * Parses a shard given as "index/count", e.g. "2/4" for the second of four shards.
+     * 
+     * @param text Shard text
+     * @return Parsed shard
+     * @throws IllegalArgumentException If the text is not a valid shard
+     */
+    private static Shard parseShard(String text) {
+        Matcher matcher = Pattern.compile("(\\d+)/(\\d+)").matcher(text.trim());
+        if (!matcher.matches()) {
+            throw new IllegalArgumentException("Invalid shard: " + text + " (expected e.g. 2/4)");
+        }
+        int index = Integer.parseInt(matcher.group(1));
+        int count = Integer.parseInt(matcher.group(2));
+        if (count < 1 || index < 1 || index > count) {
+            throw new IllegalArgumentException("Shard index must be between 1 and the shard count: " + text);
+        }
+        return Shard.builder().index(index).count(count).build();
+    }
+    
+    /**
+     * Gets the directory holding run state such as checkpoint journals.
+     * 
+     * @param config Agent configuration
+     * @return State directory path
+     */
+    private static Path stateDirectory(DocumentorConfig config) {
+        return Path.of(config.getString("DOCUMENTOR_STATE_DIR", ".documentor"));
+    }
+    
+    /**
+     * Checks whether the repository location refers to an existing local directory rather than a URL.
+     * 
+     * @param location GitHub URL or local path
+     * @return true if the location is a local directory
+     */
+    private static boolean isLocalCheckout(String location) {
+        if (location.contains("://") || location.startsWith("git@")) {
+            return false;
+        }
+        try {
+            return Files.isDirectory(Path.of(location));
+        } catch (InvalidPathException e) {
+            return false;
+        }
+    }
+    
     /**
      * Extracts the repository name from a GitHub URL.
      * 
@@ -0,0 +1,115 @@
+package com.documentor.agent.config;
+
+import io.github.cdimascio.dotenv.Dotenv;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Typed access to the agent's tuning settings from the .env file or the process environment.
+ * Missing or malformed values fall back to the supplied default.
+ */
+public class DocumentorConfig {
+    private static final Logger logger = LoggerFactory.getLogger(DocumentorConfig.class);
+
+    private final Dotenv dotenv;
+
+    public DocumentorConfig(Dotenv dotenv) {
+        this.dotenv = dotenv;
+    }
+
+    /**
+     * Gets a string setting.
+     *
+     * @param key Setting name
+     * @param defaultValue Value returned when the setting is absent or blank
+     * @return Configured value or the default
+     */
+    public String getString(String key, String defaultValue) {
+        String value = dotenv.get(key);
+        return value == null || value.isBlank() ? defaultValue : value.trim();
+    }
+
+    /**
+     * Gets an integer setting.
+     *
+     * @param key Setting name
+     * @param defaultValue Value returned when the setting is absent or not a number
+     * @return Configured value or the default
+     */
+    public int getInt(String key, int defaultValue) {
+        String value = getString(key, null);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            logger.warn("Ignoring invalid integer value '{}' for {}", value, key);
+            return defaultValue;
+        }
+    }
+
+    /**
+     * Gets a long setting.
+     *
+     * @param key Setting name
+     * @param defaultValue Value returned when the setting is absent or not a number
+     * @return Configured value or the default
+     */
+    public long getLong(String key, long defaultValue) {
+        String value = getString(key, null);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            logger.warn("Ignoring invalid integer value '{}' for {}", value, key);
+            return defaultValue;
+        }
+    }
+
+    /**
+     * Gets a decimal setting.
+     *
+     * @param key Setting name
+     * @param defaultValue Value returned when the setting is absent or not a number
+     * @return Configured value or the default
+     */
+    public double getDouble(String key, double defaultValue) {
+        String value = getString(key, null);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return Double.parseDouble(value);
+        } catch (NumberFormatException e) {
+            logger.warn("Ignoring invalid decimal value '{}' for {}", value, key);
+            return defaultValue;
+        }
+    }
+
+    /**
+     * Gets a boolean setting. Accepts true/false, yes/no and 1/0.
+     *
+     * @param key Setting name
+     * @param defaultValue Value returned when the setting is absent
+     * @return Configured value or the default
+     */
+    public boolean getBoolean(String key, boolean defaultValue) {
+        String value = getString(key, null);
+        if (value == null) {
+            return defaultValue;
+        }
+        return value.equalsIgnoreCase("true") || value.equalsIgnoreCase("yes") || value.equals("1");
+    }
+
+    /**
+     * Gets the underlying Dotenv instance.
+     *
+     * @return Dotenv instance
+     */
+    public Dotenv getDotenv() {
+        return dotenv;
+    }
+}
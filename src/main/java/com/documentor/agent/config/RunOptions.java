@@ -0,0 +1,22 @@
+package com.documentor.agent.config;
+
+import com.documentor.agent.model.Shard;
+import lombok.Builder;
+import lombok.Data;
+
+import java.time.Duration;
+
+/**
+ * Represents the command line options of a documentation run.
+ */
+@Data
+@Builder
+public class RunOptions {
+    private String repositoryLocation; // GitHub URL or path to a local checkout
+    private boolean planOnly;
+    private boolean resume; // Skip work units journaled by an interrupted run
+    private Duration deadline; // Time budget of the whole run, or null for none
+    private boolean watch; // Keep regenerating the documentation of a local checkout as it changes
+    private Shard shard; // Part of the class pages this worker writes, or null for the whole run
+    private boolean mergeShards; // Combine the output of all shards and write the remaining pages
+}
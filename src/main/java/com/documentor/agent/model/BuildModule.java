@@ -0,0 +1,17 @@
+package com.documentor.agent.model;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.nio.file.Path;
+
+/**
+ * Represents a module of a multi-module Maven or Gradle build.
+ */
+@Data
+@Builder
+public class BuildModule {
+    private String name; // Path relative to the repository root, e.g. "core/api"; "root" for sources outside any module
+    private Path directory;
+    private String buildSystem; // MAVEN, GRADLE, NONE
+}
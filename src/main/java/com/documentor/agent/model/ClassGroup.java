@@ -0,0 +1,16 @@
+package com.documentor.agent.model;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * Represents a group of structurally identical classes that share one generated documentation page.
+ */
+@Data
+@Builder
+public class ClassGroup {
+    private JavaClassDoc representative; // Documented with the LLM
+    private List<JavaClassDoc> members; // Derived from the representative's documentation
+}
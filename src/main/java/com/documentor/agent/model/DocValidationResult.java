@@ -0,0 +1,26 @@
+package com.documentor.agent.model;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * Represents the outcome of checking a generated documentation page for completeness.
+ */
+@Data
+@Builder
+public class DocValidationResult {
+    private List<String> missingSections; // Required headings not found, e.g. "Overview"
+    private List<String> missingMethods; // Public methods without a section of their own
+    private boolean unbalancedCodeFence; // A code block is left open, usually due to truncation
+
+    /**
+     * Checks whether the page passed every check.
+     *
+     * @return true if nothing is missing or broken
+     */
+    public boolean isValid() {
+        return missingSections.isEmpty() && missingMethods.isEmpty() && !unbalancedCodeFence;
+    }
+}
@@ -0,0 +1,27 @@
+package com.documentor.agent.model;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Represents the estimated cost and duration of a documentation run, produced without calling the LLM.
+ */
+@Data
+@Builder
+public class DocumentationPlan {
+    private String repositoryName;
+    private int classCount;
+    private RenderMode renderMode; // How class pages are rendered
+    private List<PromptEstimate> prompts;
+    private long totalInputTokens;
+    private long totalOutputTokens;
+    private double estimatedCost;
+    private Duration estimatedWallClock;
+    private String limitingFactor; // CONCURRENCY, REQUESTS_PER_MINUTE, TOKENS_PER_MINUTE
+    private int concurrency;
+    private int requestsPerMinute;
+    private int tokensPerMinute;
+}
@@ -3,6 +3,7 @@ package com.documentor.agent.model;
 import lombok.Builder;
 import lombok.Data;
 
+import java.nio.file.Path;
 import java.util.List;
 import java.util.Map;
 
@@ -23,8 +24,12 @@ public class JavaClassDoc {
     private List<MethodDoc> methods;
     private List<String> dependencies;
     private Map<String, String> annotations;
-    private String sourceCode;
+    private String sourceCode; // Null until materialized when parsed in signature mode
+    private PromptFidelity sourceFidelity; // Level of detail of sourceCode
+    private Path sourcePath;
     private boolean isPublic;
     private boolean isAbstract;
     private List<String> typeParameters; // For generic classes
+    private String structuralFingerprint; // Hash of the member signatures with the class name's words normalized
+    private List<String> declaredNames; // Declared identifiers in fingerprint placeholder order
 }
@@ -0,0 +1,17 @@
+package com.documentor.agent.model;
+
+import lombok.Builder;
+import lombok.Data;
+
+/**
+ * Represents the estimated size of a single prompt that would be sent to the LLM.
+ */
+@Data
+@Builder
+public class PromptEstimate {
+    private String pageType; // OVERVIEW, CLASS, METHOD_EXAMPLE, GETTING_STARTED, FAQ
+    private String target; // Repository name or fully qualified class name
+    private int characters;
+    private int inputTokens;
+    private int outputTokens;
+}
@@ -0,0 +1,19 @@
+package com.documentor.agent.model;
+
+/**
+ * Level of detail of the class source included in a class documentation prompt.
+ */
+public enum PromptFidelity {
+    FULL, // Complete class source
+    PUBLIC_SURFACE, // Non-private members, method bodies elided, only Javadoc comments
+    SIGNATURES; // Public and protected signatures with Javadoc, no bodies
+
+    /**
+     * Gets the next more detailed level.
+     *
+     * @return The richer level, or null for FULL
+     */
+    public PromptFidelity richer() {
+        return this == FULL ? null : values()[ordinal() - 1];
+    }
+}
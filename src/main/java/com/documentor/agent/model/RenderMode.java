@@ -0,0 +1,11 @@
+package com.documentor.agent.model;
+
+/**
+ * How a documentation page is produced, ordered by how much of it the LLM writes.
+ */
+public enum RenderMode {
+    FULL, // LLM page with usage examples, validation and repair
+    REDUCED, // LLM page from signatures only, without usage examples or repair
+    ENRICHED, // Template page with an LLM-written overview and usage examples
+    TEMPLATE // Rendered from the parsed model without calling the LLM
+}
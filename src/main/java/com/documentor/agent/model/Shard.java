@@ -0,0 +1,14 @@
+package com.documentor.agent.model;
+
+import lombok.Builder;
+import lombok.Data;
+
+/**
+ * Represents the part of a documentation run handled by one worker process.
+ */
+@Data
+@Builder
+public class Shard {
+    private int index; // 1-based, at most count
+    private int count; // Number of shards the run is split into
+}
@@ -12,6 +12,9 @@ import org.slf4j.LoggerFactory;
 public class AzureOpenAiService {
     private static final Logger logger = LoggerFactory.getLogger(AzureOpenAiService.class);
     
+    /** Maximum number of completion tokens requested per LLM call. */
+    public static final int MAX_TOKENS = 4000;
+    
     private final Dotenv dotenv;
     private ChatLanguageModel chatModel;
     
@@ -45,7 +48,7 @@ public class AzureOpenAiService {
                 .deploymentName(deploymentId)
                 // API version is not directly settable in this version, removing the method call
                 .temperature(0.1) // Low temperature for more precise/deterministic outputs
-                .maxTokens(4000)  // Adjust based on model capabilities
+                .maxTokens(MAX_TOKENS)  // Adjust based on model capabilities
                 .build();
             
             logger.info("Azure OpenAI client initialized successfully");
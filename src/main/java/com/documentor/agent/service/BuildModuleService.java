@@ -0,0 +1,230 @@
+package com.documentor.agent.service;
+
+import com.documentor.agent.model.BuildModule;
+import com.documentor.agent.util.HashUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.w3c.dom.Document;
+import org.w3c.dom.NodeList;
+
+import javax.xml.XMLConstants;
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.parsers.DocumentBuilderFactory;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Service that detects the modules of a multi-module Maven or Gradle build, assigns source
+ * files to them and tracks which modules changed since the last run.
+ */
+public class BuildModuleService {
+    private static final Logger logger = LoggerFactory.getLogger(BuildModuleService.class);
+    private static final Pattern GRADLE_INCLUDE = Pattern.compile("^\\s*include\\b(.*)$");
+    private static final Pattern QUOTED = Pattern.compile("['\"]([^'\"]+)['\"]");
+
+    /**
+     * Name of the module holding sources that are not inside any declared module.
+     */
+    public static final String ROOT_MODULE = "root";
+
+    /**
+     * Detects the modules declared by the build at the repository root: Maven {@code <modules>}
+     * (recursively) or Gradle {@code include} statements in settings.gradle(.kts).
+     *
+     * @param repoRoot Repository root
+     * @return Declared modules; empty for a single-module build
+     */
+    public List<BuildModule> detectModules(Path repoRoot) {
+        Path root = repoRoot.toAbsolutePath().normalize();
+        Set<Path> directories = new LinkedHashSet<>();
+        String buildSystem = "NONE";
+        if (Files.isRegularFile(root.resolve("pom.xml"))) {
+            collectMavenModules(root, directories);
+            buildSystem = "MAVEN";
+        }
+        if (directories.isEmpty()) {
+            for (String settings : List.of("settings.gradle", "settings.gradle.kts")) {
+                if (Files.isRegularFile(root.resolve(settings))) {
+                    collectGradleModules(root, root.resolve(settings), directories);
+                    buildSystem = "GRADLE";
+                }
+            }
+        }
+
+        List<BuildModule> modules = new ArrayList<>();
+        for (Path directory : directories) {
+            if (Files.isDirectory(directory) && !directory.equals(root)) {
+                modules.add(BuildModule.builder()
+                    .name(root.relativize(directory).toString().replace('\\', '/'))
+                    .directory(directory)
+                    .buildSystem(buildSystem)
+                    .build());
+            }
+        }
+        logger.info("Detected {} {} modules in {}", modules.size(), buildSystem, repoRoot);
+        return modules;
+    }
+
+    /**
+     * Assigns each source file to the innermost module containing it. Files outside every
+     * module are assigned to a {@value #ROOT_MODULE} module.
+     *
+     * @param modules Detected modules
+     * @param files Discovered source files
+     * @param repoRoot Repository root
+     * @return Files per module, in module order, without modules that have no files
+     */
+    public Map<BuildModule, List<Path>> assignFiles(List<BuildModule> modules, List<Path> files, Path repoRoot) {
+        // Deepest directories first, so nested modules win over their parents
+        List<BuildModule> byDepth = new ArrayList<>(modules);
+        byDepth.sort(Comparator.comparingInt((BuildModule m) -> m.getDirectory().getNameCount()).reversed());
+
+        Map<BuildModule, List<Path>> assigned = new LinkedHashMap<>();
+        modules.forEach(module -> assigned.put(module, new ArrayList<>()));
+        BuildModule rootModule = BuildModule.builder()
+            .name(ROOT_MODULE)
+            .directory(repoRoot.toAbsolutePath().normalize())
+            .buildSystem("NONE")
+            .build();
+        for (Path file : files) {
+            Path absolute = file.toAbsolutePath().normalize();
+            BuildModule owner = byDepth.stream()
+                .filter(module -> absolute.startsWith(module.getDirectory()))
+                .findFirst()
+                .orElse(rootModule);
+            assigned.computeIfAbsent(owner, k -> new ArrayList<>()).add(file);
+        }
+        assigned.values().removeIf(List::isEmpty);
+        return assigned;
+    }
+
+    /**
+     * Computes a hash over the paths and contents of a module's source files.
+     *
+     * @param files Source files of the module
+     * @param repoRoot Repository root the paths are made relative to
+     * @return Content hash
+     * @throws IOException If a file cannot be read
+     */
+    public String contentHash(List<Path> files, Path repoRoot) throws IOException {
+        Path root = repoRoot.toAbsolutePath().normalize();
+        StringBuilder digest = new StringBuilder();
+        List<Path> sorted = new ArrayList<>(files);
+        sorted.sort(Comparator.comparing(Path::toString));
+        for (Path file : sorted) {
+            digest.append(root.relativize(file.toAbsolutePath().normalize())).append('\t')
+                .append(HashUtils.sha256(Files.readAllBytes(file))).append('\n');
+        }
+        return HashUtils.sha256(digest.toString());
+    }
+
+    /**
+     * Loads the module content hashes recorded by the last successful run.
+     *
+     * @param stateFile File holding the hashes
+     * @return Hash per module name; empty if nothing was recorded
+     */
+    public Map<String, String> loadModuleHashes(Path stateFile) {
+        Map<String, String> hashes = new TreeMap<>();
+        if (!Files.exists(stateFile)) {
+            return hashes;
+        }
+        Properties properties = new Properties();
+        try (Reader reader = Files.newBufferedReader(stateFile)) {
+            properties.load(reader);
+            properties.stringPropertyNames().forEach(name -> hashes.put(name, properties.getProperty(name)));
+        } catch (IOException e) {
+            logger.warn("Could not read module state {}: {}", stateFile, e.getMessage());
+        }
+        return hashes;
+    }
+
+    /**
+     * Records module content hashes after a successful run.
+     *
+     * @param stateFile File holding the hashes
+     * @param hashes Hash per module name
+     * @throws IOException If the file cannot be written
+     */
+    public void saveModuleHashes(Path stateFile, Map<String, String> hashes) throws IOException {
+        Files.createDirectories(stateFile.toAbsolutePath().getParent());
+        Properties properties = new Properties();
+        properties.putAll(hashes);
+        try (Writer writer = Files.newBufferedWriter(stateFile)) {
+            properties.store(writer, "Content hashes of documented modules");
+        }
+    }
+
+    private void collectMavenModules(Path projectDir, Set<Path> directories) {
+        Path pom = projectDir.resolve("pom.xml");
+        try {
+            DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+            // POMs come from untrusted repositories: no DTDs or external entities
+            factory.setFeature("http://apache.org/xml/features/disallow-doctype-decl", true);
+            factory.setAttribute(XMLConstants.ACCESS_EXTERNAL_DTD, "");
+            factory.setAttribute(XMLConstants.ACCESS_EXTERNAL_SCHEMA, "");
+            DocumentBuilder builder = factory.newDocumentBuilder();
+            Document document = builder.parse(pom.toFile());
+
+            // Modules declared in profiles are included too
+            NodeList modules = document.getElementsByTagName("module");
+            for (int i = 0; i < modules.getLength(); i++) {
+                String modulePath = modules.item(i).getTextContent().trim();
+                if (modulePath.isEmpty()) {
+                    continue;
+                }
+                Path moduleDir = projectDir.resolve(modulePath).normalize();
+                if (modulePath.endsWith(".xml")) {
+                    moduleDir = moduleDir.getParent();
+                }
+                if (moduleDir.startsWith(projectDir) && directories.add(moduleDir)
+                    && Files.isRegularFile(moduleDir.resolve("pom.xml"))) {
+                    collectMavenModules(moduleDir, directories);
+                }
+            }
+        } catch (Exception e) {
+            logger.warn("Could not read modules from {}: {}", pom, e.getMessage());
+        }
+    }
+
+    private void collectGradleModules(Path root, Path settingsFile, Set<Path> directories) {
+        try {
+            boolean continued = false;
+            for (String line : Files.readAllLines(settingsFile)) {
+                String stripped = line.replaceAll("//.*$", "").strip();
+                Matcher include = GRADLE_INCLUDE.matcher(stripped);
+                String arguments;
+                if (include.find()) {
+                    arguments = include.group(1);
+                } else if (continued) {
+                    // Continuation of a multi-line include list
+                    arguments = stripped;
+                } else {
+                    continue;
+                }
+                Matcher quoted = QUOTED.matcher(arguments);
+                while (quoted.find()) {
+                    String projectPath = quoted.group(1).replaceFirst("^:", "").replace(':', '/');
+                    directories.add(root.resolve(projectPath).normalize());
+                }
+                continued = stripped.endsWith(",");
+            }
+        } catch (IOException e) {
+            logger.warn("Could not read modules from {}: {}", settingsFile, e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,183 @@
+package com.documentor.agent.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Append-only journal of completed documentation work units, used to resume an interrupted run.
+ * <p>
+ * Each line records a work unit id and the hash of the input it was generated from. Writes are
+ * appended immediately but only forced to disk once a batch is full or the flush interval has
+ * elapsed. A background timer also forces records that are older than the flush interval, so the
+ * last batch of a stalled or slow run is not left unsynced until the journal is closed. A crash
+ * therefore loses at most one batch or one flush interval of progress. A torn final line is
+ * ignored on load.
+ */
+public class CheckpointJournalService implements Closeable {
+    private static final Logger logger = LoggerFactory.getLogger(CheckpointJournalService.class);
+    private static final char SEPARATOR = '\t';
+
+    private final Path journalFile;
+    private final int batchSize;
+    private final long flushIntervalNanos;
+    private final Map<String, String> completed = new ConcurrentHashMap<>();
+    private final FileChannel channel;
+    private final ScheduledExecutorService flusher;
+    private int pendingWrites;
+    private long lastSyncNanos;
+
+    /**
+     * Opens the journal, loading previous entries when resuming.
+     *
+     * @param journalFile Path to the journal file
+     * @param resume Whether to keep and load the existing journal; otherwise it is truncated
+     * @param batchSize Number of records after which the journal is forced to disk
+     * @param flushInterval Maximum time a record may stay unsynced
+     * @throws IOException If the journal cannot be opened
+     */
+    public CheckpointJournalService(Path journalFile, boolean resume, int batchSize, Duration flushInterval) throws IOException {
+        this.journalFile = journalFile;
+        this.batchSize = Math.max(1, batchSize);
+        this.flushIntervalNanos = flushInterval.toNanos();
+
+        Files.createDirectories(journalFile.toAbsolutePath().getParent());
+        if (resume && Files.exists(journalFile)) {
+            load();
+            logger.info("Loaded {} completed work units from journal {}", completed.size(), journalFile);
+        } else {
+            Files.deleteIfExists(journalFile);
+        }
+
+        // READ cannot be combined with APPEND, so records are appended by writing at the end
+        this.channel = FileChannel.open(journalFile,
+            StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        channel.position(channel.size());
+        terminateTornRecord();
+        this.lastSyncNanos = System.nanoTime();
+
+        this.flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "journal-flush");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long period = Math.max(TimeUnit.MILLISECONDS.toNanos(1), flushIntervalNanos);
+        flusher.scheduleWithFixedDelay(this::syncIfDue, period, period, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Checks whether a work unit was completed from the same input.
+     *
+     * @param unitId Work unit id, e.g. "class:com.example.Foo"
+     * @param inputHash Hash of the input the unit is generated from
+     * @return true if the unit is journaled with a matching hash
+     */
+    public boolean isCompleted(String unitId, String inputHash) {
+        return inputHash.equals(completed.get(unitId));
+    }
+
+    /**
+     * Records a completed work unit.
+     *
+     * @param unitId Work unit id
+     * @param inputHash Hash of the input the unit was generated from
+     * @throws IOException If the record cannot be written
+     */
+    public synchronized void recordCompleted(String unitId, String inputHash) throws IOException {
+        String line = unitId + SEPARATOR + inputHash + "\n";
+        ByteBuffer buffer = ByteBuffer.wrap(line.getBytes(StandardCharsets.UTF_8));
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        completed.put(unitId, inputHash);
+
+        pendingWrites++;
+        if (pendingWrites >= batchSize || System.nanoTime() - lastSyncNanos >= flushIntervalNanos) {
+            sync();
+        }
+    }
+
+    /**
+     * Gets the number of completed work units.
+     *
+     * @return Number of journaled work units
+     */
+    public int getCompletedCount() {
+        return completed.size();
+    }
+
+    /**
+     * Forces pending records to disk and closes the journal.
+     *
+     * @throws IOException If the journal cannot be synced
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        flusher.shutdownNow();
+        if (channel.isOpen()) {
+            sync();
+            channel.close();
+        }
+    }
+
+    private void sync() throws IOException {
+        if (pendingWrites > 0) {
+            channel.force(false);
+            pendingWrites = 0;
+        }
+        lastSyncNanos = System.nanoTime();
+    }
+
+    private synchronized void syncIfDue() {
+        // Records written before a pause in the run would otherwise wait for the next record
+        if (!channel.isOpen() || pendingWrites == 0 || System.nanoTime() - lastSyncNanos < flushIntervalNanos) {
+            return;
+        }
+        try {
+            sync();
+        } catch (IOException e) {
+            logger.warn("Could not sync journal {}: {}", journalFile, e.getMessage());
+        }
+    }
+
+    private void terminateTornRecord() throws IOException {
+        long size = channel.size();
+        if (size == 0) {
+            return;
+        }
+        ByteBuffer last = ByteBuffer.allocate(1);
+        channel.read(last, size - 1);
+        if (last.get(0) != '\n') {
+            // Start new records on a fresh line so they are not merged into the torn one
+            channel.write(ByteBuffer.wrap(new byte[] {'\n'}));
+        }
+    }
+
+    private void load() throws IOException {
+        // Decode leniently: a torn write may end in the middle of a multi-byte character
+        String content = new String(Files.readAllBytes(journalFile), StandardCharsets.UTF_8);
+        for (String line : content.split("\n")) {
+            int separator = line.indexOf(SEPARATOR);
+            // SHA-256 hex digests are 64 characters; anything else is a torn write
+            if (separator <= 0 || line.length() - separator - 1 != 64) {
+                logger.warn("Ignoring incomplete journal record: {}", line);
+                continue;
+            }
+            completed.put(line.substring(0, separator), line.substring(separator + 1));
+        }
+    }
+}
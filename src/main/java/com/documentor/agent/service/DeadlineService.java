@@ -0,0 +1,124 @@
+package com.documentor.agent.service;
+
+import com.documentor.agent.model.RenderMode;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Service that keeps a documentation run within a deadline by choosing how each page is rendered.
+ * <p>
+ * The expected output of all pages is registered up front. When a page starts, the output still
+ * to be generated is converted into time using the observed LLM throughput (seeded with the
+ * configured throughput until the first calls complete). While all remaining work fits in the
+ * time left, pages are generated in full. Once it no longer fits, pages switch to the reduced
+ * prompt, and pages whose LLM call would end after the deadline are rendered from templates.
+ * Since work runs in order of importance, the least important pages are the ones degraded.
+ */
+public class DeadlineService {
+    private static final Logger logger = LoggerFactory.getLogger(DeadlineService.class);
+
+    // Weight of the configured throughput, in output tokens, against the observed calls
+    private static final long PRIOR_OUTPUT_TOKENS = 1000;
+
+    private final Instant deadline;
+    private final Duration safetyMargin;
+    private final int concurrency;
+    private final double priorSeconds;
+    private long pendingFullTokens;
+    private long observedOutputTokens;
+    private double observedSeconds;
+    private final Map<RenderMode, Integer> pagesByMode = new EnumMap<>(RenderMode.class);
+
+    /**
+     * @param deadline Time by which the run must have finished
+     * @param safetyMargin Time reserved before the deadline for writing results
+     * @param concurrency Number of pages generated at the same time
+     * @param outputTokensPerSecond Configured LLM throughput of a single call
+     * @param requestOverheadSeconds Configured fixed latency of a single call
+     */
+    public DeadlineService(Instant deadline, Duration safetyMargin, int concurrency,
+                           double outputTokensPerSecond, double requestOverheadSeconds) {
+        this.deadline = deadline;
+        this.safetyMargin = safetyMargin;
+        this.concurrency = Math.max(1, concurrency);
+        this.priorSeconds = requestOverheadSeconds + PRIOR_OUTPUT_TOKENS / Math.max(1.0, outputTokensPerSecond);
+    }
+
+    /**
+     * Registers a page that will be generated later in the run.
+     *
+     * @param fullOutputTokens Expected output of the full page
+     */
+    public synchronized void registerPage(long fullOutputTokens) {
+        pendingFullTokens += fullOutputTokens;
+    }
+
+    /**
+     * Chooses how a registered page is rendered, given the time left and the work still pending.
+     *
+     * @param fullOutputTokens Expected output of the full page, as registered
+     * @param reducedOutputTokens Expected output of the reduced page, or 0 if it has no reduced form
+     * @return Render mode of the page
+     */
+    public synchronized RenderMode begin(long fullOutputTokens, long reducedOutputTokens) {
+        long pendingFull = pendingFullTokens;
+        pendingFullTokens -= fullOutputTokens;
+
+        double secondsLeft = Duration.between(Instant.now(), deadline.minus(safetyMargin)).toMillis() / 1000.0;
+        double secondsPerToken = secondsPerToken();
+        RenderMode mode;
+        if (pendingFull * secondsPerToken / concurrency <= secondsLeft) {
+            mode = RenderMode.FULL;
+        } else if (reducedOutputTokens > 0 && reducedOutputTokens * secondsPerToken <= secondsLeft) {
+            mode = RenderMode.REDUCED;
+        } else if (reducedOutputTokens <= 0 && fullOutputTokens * secondsPerToken <= secondsLeft) {
+            // Pages without a reduced form are generated in full as long as they end in time
+            mode = RenderMode.FULL;
+        } else {
+            mode = RenderMode.TEMPLATE;
+        }
+        pagesByMode.merge(mode, 1, Integer::sum);
+        if (mode != RenderMode.FULL) {
+            logger.debug("Rendering page as {}: {} s left, {} output tokens pending", mode,
+                Math.round(secondsLeft), pendingFull);
+        }
+        return mode;
+    }
+
+    /**
+     * Records a completed LLM call to refine the throughput estimate.
+     *
+     * @param outputTokens Output tokens of the call
+     * @param elapsed Duration of the call
+     */
+    public synchronized void recordCall(long outputTokens, Duration elapsed) {
+        if (outputTokens > 0) {
+            observedOutputTokens += outputTokens;
+            observedSeconds += elapsed.toMillis() / 1000.0;
+        }
+    }
+
+    /**
+     * Formats how many pages were rendered in each mode and the observed throughput.
+     *
+     * @return Report line
+     */
+    public synchronized String formatReport() {
+        return String.format(Locale.ROOT,
+            "Deadline %s: %d pages full, %d reduced, %d from templates; observed %.1f output tokens/s per call",
+            deadline, pagesByMode.getOrDefault(RenderMode.FULL, 0), pagesByMode.getOrDefault(RenderMode.REDUCED, 0),
+            pagesByMode.getOrDefault(RenderMode.TEMPLATE, 0),
+            observedSeconds > 0 ? observedOutputTokens / observedSeconds : 0.0);
+    }
+
+    private double secondsPerToken() {
+        // The configured throughput counts as one call of PRIOR_OUTPUT_TOKENS, so early estimates are not wild
+        return (priorSeconds + observedSeconds) / (PRIOR_OUTPUT_TOKENS + observedOutputTokens);
+    }
+}
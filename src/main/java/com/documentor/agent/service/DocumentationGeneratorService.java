@@ -1,20 +1,26 @@
 package com.documentor.agent.service;
 
 import com.documentor.agent.model.JavaClassDoc;
-import com.documentor.agent.model.MethodDoc;
+import com.documentor.agent.model.RenderMode;
+import com.documentor.agent.util.HashUtils;
+import com.documentor.agent.util.Tracing;
+import dev.langchain4j.data.message.AiMessage;
+import dev.langchain4j.data.message.UserMessage;
 import dev.langchain4j.model.chat.ChatLanguageModel;
-import dev.langchain4j.model.input.Prompt;
-import dev.langchain4j.model.input.PromptTemplate;
+import dev.langchain4j.model.output.Response;
+import dev.langchain4j.model.output.TokenUsage;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.nio.file.Paths;
-import java.util.HashMap;
+import java.time.Duration;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.function.UnaryOperator;
 import java.util.stream.Collectors;
 
 /**
@@ -22,16 +28,76 @@ import java.util.stream.Collectors;
  */
 public class DocumentationGeneratorService {
     private static final Logger logger = LoggerFactory.getLogger(DocumentationGeneratorService.class);
-    
+
     private final ChatLanguageModel chatModel;
+    private final DocumentationPromptService promptService;
+    private final TemplateRenderingService templateRenderingService = new TemplateRenderingService();
+    private CheckpointJournalService checkpointJournal;
+    private MethodExampleService methodExampleService;
+    private MarkdownValidationService markdownValidationService;
+    private PromptFidelityService promptFidelityService;
+    private DeadlineService deadlineService;
 
     public DocumentationGeneratorService(ChatLanguageModel chatModel) {
+        this(chatModel, new DocumentationPromptService());
+    }
+
+    public DocumentationGeneratorService(ChatLanguageModel chatModel, DocumentationPromptService promptService) {
         this.chatModel = chatModel;
+        this.promptService = promptService;
     }
-    
+
+    /**
+     * Sets the journal used to skip work units completed by an earlier, interrupted run.
+     *
+     * @param checkpointJournal Journal of completed work units, or null to disable checkpointing
+     */
+    public void setCheckpointJournal(CheckpointJournalService checkpointJournal) {
+        this.checkpointJournal = checkpointJournal;
+    }
+
+    /**
+     * Sets the service that generates per-method usage examples. When set, class prompts no longer
+     * ask for examples and the separately generated ones are appended to each class page.
+     *
+     * @param methodExampleService Example service, or null to let the class prompt write examples
+     */
+    public void setMethodExampleService(MethodExampleService methodExampleService) {
+        this.methodExampleService = methodExampleService;
+    }
+
+    /**
+     * Sets the service that checks each class page for required sections and repairs only what is missing.
+     *
+     * @param markdownValidationService Validation service, or null to write pages as generated
+     */
+    public void setMarkdownValidationService(MarkdownValidationService markdownValidationService) {
+        this.markdownValidationService = markdownValidationService;
+    }
+
+    /**
+     * Sets the service that escalates a class to richer source when its page fails validation.
+     * Has no effect without a validation service.
+     *
+     * @param promptFidelityService Fidelity service, or null to never regenerate a class page
+     */
+    public void setPromptFidelityService(PromptFidelityService promptFidelityService) {
+        this.promptFidelityService = promptFidelityService;
+    }
+
+    /**
+     * Sets the service that is told the duration and output size of each LLM call, so it can
+     * estimate whether the remaining pages finish before the deadline.
+     *
+     * @param deadlineService Deadline service, or null when the run has no deadline
+     */
+    public void setDeadlineService(DeadlineService deadlineService) {
+        this.deadlineService = deadlineService;
+    }
+
     /**
      * Generates project overview documentation.
-     * 
+     *
      * @param classes List of parsed Java classes
      * @param repositoryName Name of the GitHub repository
      * @param outputBasePath Base path to write generated documentation
@@ -39,180 +105,204 @@ public class DocumentationGeneratorService {
      * @throws IOException If an error occurs during file writing
      */
     public Path generateProjectOverview(List<JavaClassDoc> classes, String repositoryName, Path outputBasePath) throws IOException {
+        return generateProjectOverview(classes, repositoryName, outputBasePath, RenderMode.FULL);
+    }
+
+    /**
+     * Generates project overview documentation, with the LLM or from a template.
+     *
+     * @param classes List of parsed Java classes
+     * @param repositoryName Name of the GitHub repository
+     * @param outputBasePath Base path to write generated documentation
+     * @param mode How the page is rendered
+     * @return Path to the generated README.md file
+     * @throws IOException If an error occurs during file writing
+     */
+    public Path generateProjectOverview(List<JavaClassDoc> classes, String repositoryName, Path outputBasePath,
+                                        RenderMode mode) throws IOException {
         logger.info("Generating project overview documentation for {}", repositoryName);
-        
-        // Prepare data for the prompt
-        String classListSummary = classes.stream()
-            .map(c -> c.getFullyQualifiedName() + " (" + c.getType() + ")" + 
-                 (c.getDescription() != null ? ": " + c.getDescription() : ""))
-            .collect(Collectors.joining("\n"));
-        
-        // Count different types of classes
-        long interfaceCount = classes.stream().filter(c -> "INTERFACE".equals(c.getType())).count();
-        long classCount = classes.stream().filter(c -> "CLASS".equals(c.getType())).count();
-        long enumCount = classes.stream().filter(c -> "ENUM".equals(c.getType())).count();
-        
-        // Create prompt template for project overview
-        String projectOverviewTemplate = """
-            You are DocuMentor, an expert Java documentation specialist with deep knowledge of software architecture, design patterns, and Java best practices.
-            
-            # Task
-            Generate comprehensive project overview documentation in Markdown format for a Java project.
-            
-            # Project Information
-            Repository Name: {{repositoryName}}
-            Total Classes: {{totalClasses}}
-            - Regular Classes: {{classCount}}
-            - Interfaces: {{interfaceCount}}
-            - Enums: {{enumCount}}
-            
-            # Classes Summary
-            {{classSummary}}
-            
-            # Instructions
-            1. Create a professional README.md file with the following sections:
-               - Project Title and Brief Description
-               - Table of Contents
-               - Overview (project purpose and main functionality)
-               - Features
-               - Installation Instructions
-               - Getting Started Guide
-               - Prerequisites
-               - Link to API Documentation
-            
-            2. Make educated guesses about the project's purpose based on class names and descriptions.
-            3. The tone should be professional, concise, and technically precise.
-            4. Include relevant sections based on the project's nature.
-            5. Do not include placeholder text like "TODO" or "Insert here".
-            
-            # Output Format
-            Provide the complete README.md content in valid Markdown format.
-            """;
-        
-        PromptTemplate template = PromptTemplate.from(projectOverviewTemplate);
-        
-        Map<String, Object> variables = new HashMap<>();
-        variables.put("repositoryName", repositoryName);
-        variables.put("totalClasses", classes.size());
-        variables.put("classCount", classCount);
-        variables.put("interfaceCount", interfaceCount);
-        variables.put("enumCount", enumCount);
-        variables.put("classSummary", classListSummary);
-        
-        Prompt prompt = template.apply(variables);
-        
-        // Generate content using the LLM
-        String readmeContent = chatModel.generate(prompt.text());
-        
+
         // Ensure output directory exists
         Files.createDirectories(outputBasePath);
-        
-        // Write the README.md file
+
+        // Generate and write the README.md file
         Path readmePath = outputBasePath.resolve("README.md");
-        Files.writeString(readmePath, readmeContent);
-        
+        if (mode == RenderMode.TEMPLATE) {
+            Files.writeString(readmePath, templateRenderingService.renderProjectOverview(classes, repositoryName));
+        } else {
+            generatePage("overview", promptService.renderProjectOverviewPrompt(classes, repositoryName), readmePath);
+        }
+
         logger.info("Generated project overview at {}", readmePath);
         return readmePath;
     }
-    
+
     /**
      * Generates detailed API documentation for a Java class.
-     * 
+     *
      * @param classDoc The Java class to document
      * @param outputBasePath Base path to write generated documentation
      * @return Path to the generated class documentation file
      * @throws IOException If an error occurs during file writing
      */
     public Path generateClassDocumentation(JavaClassDoc classDoc, Path outputBasePath) throws IOException {
-        logger.info("Generating documentation for class: {}", classDoc.getFullyQualifiedName());
-        
-        // Create a summary of methods
-        String methodsSummary = classDoc.getMethods().stream()
-            .map(m -> m.getName() + "(" + 
-                m.getParameters().stream()
-                    .map(p -> p.getType() + " " + p.getName())
-                    .collect(Collectors.joining(", ")) + 
-                "): " + m.getReturnType())
-            .collect(Collectors.joining("\n"));
-        
-        // Class documentation template
-        String classDocTemplate = """
-            You are DocuMentor, an expert Java documentation specialist with deep knowledge of software architecture, design patterns, and Java best practices.
-            
-            # Task
-            Generate detailed class documentation in Markdown format for a Java class.
-            
-            # Class Information
-            Class Name: {{className}}
-            Package: {{packageName}}
-            Type: {{classType}}
-            Description: {{classDescription}}
-            
-            # Class Details
-            ```java
-            {{sourceCode}}
-            ```
-            
-            # Methods Summary
-            {{methodsSummary}}
-            
-            # Instructions
-            1. Create professional, detailed class documentation following Oracle Java Documentation Standards.
-            2. Include the following sections:
-               - Class Name and Package
-               - Overview
-               - Dependencies (classes this class depends on)
-               - Public Methods summary with links to detailed method sections
-               - Detailed documentation for each method
-            
-            3. For each method, document:
-               - Method signature
-               - Description
-               - Parameters with descriptions
-               - Return value with description
-               - Exceptions with conditions
-               - Usage example (create a simple, realistic example)
-            
-            4. Use Technical Precision Mode:
-               - Prioritize precision over readability
-               - Include all technical details and edge cases
-               - Use formal technical language
-               - Focus on correctness and completeness
-            
-            # Output Format
-            Provide the complete class documentation in valid Markdown format.
-            """;
-        
-        PromptTemplate template = PromptTemplate.from(classDocTemplate);
-        
-        Map<String, Object> variables = new HashMap<>();
-        variables.put("className", classDoc.getName());
-        variables.put("packageName", classDoc.getPackageName());
-        variables.put("classType", classDoc.getType());
-        variables.put("classDescription", classDoc.getDescription() != null ? classDoc.getDescription() : "");
-        variables.put("sourceCode", classDoc.getSourceCode());
-        variables.put("methodsSummary", methodsSummary);
-        
-        Prompt prompt = template.apply(variables);
-        
-        // Generate content using the LLM
-        String classDocContent = chatModel.generate(prompt.text());
-        
+        return generateClassDocumentation(classDoc, outputBasePath, RenderMode.FULL);
+    }
+
+    /**
+     * Generates API documentation for a Java class. A reduced page is generated from a prompt without
+     * usage examples and written as returned; a template page is rendered without the LLM. An enriched
+     * page is a template page whose overview is written by the LLM, followed by the usage examples.
+     *
+     * @param classDoc The Java class to document
+     * @param outputBasePath Base path to write generated documentation
+     * @param mode How the page is rendered
+     * @return Path to the generated class documentation file
+     * @throws IOException If an error occurs during file writing
+     */
+    public Path generateClassDocumentation(JavaClassDoc classDoc, Path outputBasePath, RenderMode mode) throws IOException {
+        logger.info("Generating documentation for class: {} ({})", classDoc.getFullyQualifiedName(), mode);
+
         // Ensure output directory exists
         Path apiDir = outputBasePath.resolve("api");
         Files.createDirectories(apiDir);
-        
-        // Write the class documentation file
+
+        // Generate and write the class documentation file
         Path classDocPath = apiDir.resolve(classDoc.getName() + ".md");
-        Files.writeString(classDocPath, classDocContent);
-        
+        if (mode == RenderMode.TEMPLATE) {
+            Files.writeString(classDocPath, templateRenderingService.renderClassPage(classDoc));
+            return classDocPath;
+        }
+        if (mode == RenderMode.ENRICHED) {
+            generatePage("class:" + classDoc.getFullyQualifiedName(), promptService.renderClassOverviewPrompt(classDoc),
+                classDocPath, () -> populateExamples(classDoc), overview -> {
+                    // The template provides the headings; any the LLM adds anyway are dropped
+                    String paragraphs = overview.lines()
+                        .filter(line -> !line.strip().startsWith("#"))
+                        .collect(Collectors.joining("\n"));
+                    String page = templateRenderingService.renderClassPage(classDoc, paragraphs);
+                    String examples = methodExampleService != null ? methodExampleService.renderExamplesSection(classDoc) : "";
+                    return examples.isEmpty() ? page : page.stripTrailing() + examples;
+                });
+            return classDocPath;
+        }
+        if (mode == RenderMode.REDUCED) {
+            generatePage("class:" + classDoc.getFullyQualifiedName(),
+                promptService.renderClassDocumentationPrompt(classDoc, false), classDocPath);
+            return classDocPath;
+        }
+
+        boolean separateExamples = methodExampleService != null;
+        String prompt = promptService.renderClassDocumentationPrompt(classDoc, !separateExamples);
+        // Validate before examples are appended, so their headings do not count as method sections
+        UnaryOperator<String> postProcessor = markdownValidationService != null
+            ? content -> validateClassPage(content, classDoc, !separateExamples)
+            : UnaryOperator.identity();
+        if (separateExamples) {
+            UnaryOperator<String> validate = postProcessor;
+            postProcessor = content -> validate.apply(content) + methodExampleService.renderExamplesSection(classDoc);
+        }
+        generatePage("class:" + classDoc.getFullyQualifiedName(), prompt, classDocPath,
+            () -> populateExamples(classDoc), postProcessor);
+
         logger.info("Generated class documentation at {}", classDocPath);
         return classDocPath;
     }
-    
+
+    /**
+     * Writes a summary page for a package from the class pages generated before it, without calling the LLM.
+     * Each class is listed with the first paragraph of its page's Overview section, or its Javadoc summary
+     * if the page has none.
+     *
+     * @param packageName Name of the package
+     * @param classes Classes of the package, all with generated class pages
+     * @param outputBasePath Base path to write generated documentation
+     * @return Path to the generated package summary file
+     * @throws IOException If an error occurs during file reading or writing
+     */
+    public Path generatePackageSummary(String packageName, List<JavaClassDoc> classes, Path outputBasePath) throws IOException {
+        logger.info("Generating package summary for {}", packageName.isEmpty() ? "(default package)" : packageName);
+
+        Path packagesDir = outputBasePath.resolve("packages");
+        Files.createDirectories(packagesDir);
+
+        StringBuilder page = new StringBuilder();
+        page.append("# Package ").append(packageName.isEmpty() ? "(default)" : "`" + packageName + "`").append("\n\n");
+        page.append("| Class | Type | Summary |\n");
+        page.append("|---|---|---|\n");
+        classes.stream()
+            .sorted(Comparator.comparing(JavaClassDoc::getName))
+            .forEach(classDoc -> {
+                Path classDocPath = outputBasePath.resolve("api").resolve(classDoc.getName() + ".md");
+                String summary = overviewSummary(classDocPath);
+                if (summary == null && classDoc.getDescription() != null) {
+                    summary = firstSentence(classDoc.getDescription());
+                }
+                page.append("| [").append(classDoc.getName()).append("](../api/").append(classDoc.getName()).append(".md) | ")
+                    .append(classDoc.getType()).append(" | ")
+                    .append(summary != null ? summary.replace("|", "\\|") : "").append(" |\n");
+            });
+
+        Path packagePath = packagesDir.resolve((packageName.isEmpty() ? "default" : packageName) + ".md");
+        Files.writeString(packagePath, page.toString());
+
+        logger.info("Generated package summary at {}", packagePath);
+        return packagePath;
+    }
+
+    /**
+     * Writes the top-level index of a multi-module repository, linking each module's documentation
+     * and the repository-wide guides, without calling the LLM.
+     *
+     * @param repositoryName Name of the GitHub repository
+     * @param classesByModule Classes of each module, in module order
+     * @param outputBasePath Base path to write generated documentation
+     * @return Path to the generated README.md file
+     * @throws IOException If an error occurs during file writing
+     */
+    public Path generateModuleIndex(String repositoryName, Map<String, List<JavaClassDoc>> classesByModule,
+                                    Path outputBasePath) throws IOException {
+        logger.info("Generating module index for {}", repositoryName);
+        Files.createDirectories(outputBasePath);
+
+        StringBuilder page = new StringBuilder();
+        page.append("# ").append(repositoryName).append("\n\n");
+        page.append("## Modules\n\n");
+        page.append("| Module | Packages | Classes |\n");
+        page.append("|---|---|---|\n");
+        classesByModule.forEach((module, classes) -> page.append("| [").append(module).append("](modules/")
+            .append(module).append("/README.md) | ")
+            .append(classes.stream().map(JavaClassDoc::getPackageName).distinct().count()).append(" | ")
+            .append(classes.size()).append(" |\n"));
+        page.append("\n## Guides\n\n");
+        page.append("- [Getting started](getting-started.md)\n");
+        page.append("- [FAQ and troubleshooting](faq.md)\n");
+
+        Path indexPath = outputBasePath.resolve("README.md");
+        Files.writeString(indexPath, page.toString());
+
+        logger.info("Generated module index at {}", indexPath);
+        return indexPath;
+    }
+
+    /**
+     * Validates a class page. A page generated from compacted source that lacks content is first
+     * regenerated from richer source; whatever is still missing is then repaired.
+     */
+    private String validateClassPage(String content, JavaClassDoc classDoc, boolean includeUsageExamples) {
+        String page = content;
+        while (promptFidelityService != null
+               && markdownValidationService.isMissingContent(page, classDoc)
+               && promptFidelityService.escalate(classDoc)) {
+            page = chat("class:" + classDoc.getFullyQualifiedName(),
+                promptService.renderClassDocumentationPrompt(classDoc, includeUsageExamples));
+        }
+        return markdownValidationService.validateAndRepair(page, classDoc);
+    }
+
     /**
      * Generates a getting started guide for the project.
-     * 
+     *
      * @param classes List of parsed Java classes
      * @param repositoryName Name of the GitHub repository
      * @param outputBasePath Base path to write generated documentation
@@ -220,70 +310,39 @@ public class DocumentationGeneratorService {
      * @throws IOException If an error occurs during file writing
      */
     public Path generateGettingStartedGuide(List<JavaClassDoc> classes, String repositoryName, Path outputBasePath) throws IOException {
+        return generateGettingStartedGuide(classes, repositoryName, outputBasePath, RenderMode.FULL);
+    }
+
+    /**
+     * Generates a getting started guide for the project, with the LLM or from a template.
+     *
+     * @param classes List of parsed Java classes
+     * @param repositoryName Name of the GitHub repository
+     * @param outputBasePath Base path to write generated documentation
+     * @param mode How the page is rendered
+     * @return Path to the generated getting-started.md file
+     * @throws IOException If an error occurs during file writing
+     */
+    public Path generateGettingStartedGuide(List<JavaClassDoc> classes, String repositoryName, Path outputBasePath,
+                                            RenderMode mode) throws IOException {
         logger.info("Generating getting started guide for {}", repositoryName);
-        
-        // Find public classes that might be entry points or main components
-        List<String> mainClasses = classes.stream()
-            .filter(JavaClassDoc::isPublic)
-            .map(JavaClassDoc::getFullyQualifiedName)
-            .collect(Collectors.toList());
-        
-        // Getting started guide template
-        String gettingStartedTemplate = """
-            You are DocuMentor, an expert Java documentation specialist with deep knowledge of software architecture, design patterns, and Java best practices.
-            
-            # Task
-            Generate a comprehensive "Getting Started" guide in Markdown format for a Java project.
-            
-            # Project Information
-            Repository Name: {{repositoryName}}
-            Main Public Classes:
-            {{mainClasses}}
-            
-            # Instructions
-            1. Create a beginner-friendly getting started guide with:
-               - Quick Start section with basic usage examples
-               - Common use cases with code examples
-               - Configuration options
-               - Best practices
-            
-            2. Use Developer Guide Mode:
-               - Balance precision with readability
-               - Include practical examples and common use cases
-               - Use approachable yet professional language
-               - Focus on helping developers accomplish tasks
-            
-            3. Include code snippets that demonstrate:
-               - How to initialize/configure the library
-               - How to use the most important features
-               - How to handle common errors
-            
-            # Output Format
-            Provide the complete getting-started.md content in valid Markdown format.
-            """;
-        
-        PromptTemplate template = PromptTemplate.from(gettingStartedTemplate);
-        
-        Map<String, Object> variables = new HashMap<>();
-        variables.put("repositoryName", repositoryName);
-        variables.put("mainClasses", String.join("\n", mainClasses));
-        
-        Prompt prompt = template.apply(variables);
-        
-        // Generate content using the LLM
-        String gettingStartedContent = chatModel.generate(prompt.text());
-        
-        // Write the getting-started.md file
+
+        // Generate and write the getting-started.md file
+        Files.createDirectories(outputBasePath);
         Path gettingStartedPath = outputBasePath.resolve("getting-started.md");
-        Files.writeString(gettingStartedPath, gettingStartedContent);
-        
+        if (mode == RenderMode.TEMPLATE) {
+            Files.writeString(gettingStartedPath, templateRenderingService.renderGettingStartedGuide(classes, repositoryName));
+        } else {
+            generatePage("getting-started", promptService.renderGettingStartedPrompt(classes, repositoryName), gettingStartedPath);
+        }
+
         logger.info("Generated getting started guide at {}", gettingStartedPath);
         return gettingStartedPath;
     }
-    
+
     /**
      * Generates an FAQ and troubleshooting guide.
-     * 
+     *
      * @param classes List of parsed Java classes
      * @param repositoryName Name of the GitHub repository
      * @param outputBasePath Base path to write generated documentation
@@ -291,64 +350,175 @@ public class DocumentationGeneratorService {
      * @throws IOException If an error occurs during file writing
      */
     public Path generateFaqAndTroubleshooting(List<JavaClassDoc> classes, String repositoryName, Path outputBasePath) throws IOException {
+        return generateFaqAndTroubleshooting(classes, repositoryName, outputBasePath, RenderMode.FULL);
+    }
+
+    /**
+     * Generates an FAQ and troubleshooting guide, with the LLM or from a template.
+     *
+     * @param classes List of parsed Java classes
+     * @param repositoryName Name of the GitHub repository
+     * @param outputBasePath Base path to write generated documentation
+     * @param mode How the page is rendered
+     * @return Path to the generated faq.md file
+     * @throws IOException If an error occurs during file writing
+     */
+    public Path generateFaqAndTroubleshooting(List<JavaClassDoc> classes, String repositoryName, Path outputBasePath,
+                                              RenderMode mode) throws IOException {
         logger.info("Generating FAQ and troubleshooting guide for {}", repositoryName);
-        
-        // Collect exception information from methods to identify potential issues
-        List<String> exceptionTypes = classes.stream()
-            .flatMap(c -> c.getMethods().stream())
-            .flatMap(m -> m.getExceptions() != null ? m.getExceptions().stream() : List.<String>of().stream())
-            .distinct()
-            .collect(Collectors.toList());
-        
-        // FAQ template
-        String faqTemplate = """
-            You are DocuMentor, an expert Java documentation specialist with deep knowledge of software architecture, design patterns, and Java best practices.
-            
-            # Task
-            Generate an FAQ and troubleshooting guide in Markdown format for a Java project.
-            
-            # Project Information
-            Repository Name: {{repositoryName}}
-            Exception Types Found:
-            {{exceptionTypes}}
-            
-            # Instructions
-            1. Create a helpful FAQ and troubleshooting guide with:
-               - Common questions about installation and setup
-               - Usage questions and answers
-               - Troubleshooting for common errors and exceptions
-               - Performance tips
-            
-            2. Based on the exceptions found in the codebase, create troubleshooting entries that:
-               - Explain what might cause each exception
-               - Provide solutions to resolve the issues
-               - Include code examples showing proper handling
-            
-            3. Use Developer Guide Mode:
-               - Balance precision with readability
-               - Use approachable yet professional language
-               - Focus on practical solutions
-            
-            # Output Format
-            Provide the complete faq.md content in valid Markdown format.
-            """;
-        
-        PromptTemplate template = PromptTemplate.from(faqTemplate);
-        
-        Map<String, Object> variables = new HashMap<>();
-        variables.put("repositoryName", repositoryName);
-        variables.put("exceptionTypes", String.join("\n", exceptionTypes));
-        
-        Prompt prompt = template.apply(variables);
-        
-        // Generate content using the LLM
-        String faqContent = chatModel.generate(prompt.text());
-        
-        // Write the faq.md file
+
+        // Generate and write the faq.md file
+        Files.createDirectories(outputBasePath);
         Path faqPath = outputBasePath.resolve("faq.md");
-        Files.writeString(faqPath, faqContent);
-        
+        if (mode == RenderMode.TEMPLATE) {
+            Files.writeString(faqPath, templateRenderingService.renderFaqAndTroubleshooting(classes, repositoryName));
+        } else {
+            generatePage("faq", promptService.renderFaqPrompt(classes, repositoryName), faqPath);
+        }
+
         logger.info("Generated FAQ and troubleshooting guide at {}", faqPath);
         return faqPath;
     }
+
+    /**
+     * Extracts the first paragraph of the Overview section of a generated page.
+     *
+     * @return The paragraph on a single line, or null if the page or section does not exist
+     */
+    private String overviewSummary(Path pagePath) {
+        if (!Files.exists(pagePath)) {
+            return null;
+        }
+        try {
+            List<String> lines = Files.readAllLines(pagePath);
+            boolean inOverview = false;
+            StringBuilder paragraph = new StringBuilder();
+            for (String line : lines) {
+                String trimmed = line.strip();
+                if (trimmed.startsWith("#")) {
+                    if (inOverview && paragraph.length() > 0) {
+                        break;
+                    }
+                    inOverview = trimmed.toLowerCase(Locale.ROOT).contains("overview");
+                } else if (inOverview && trimmed.isEmpty() && paragraph.length() > 0) {
+                    break;
+                } else if (inOverview && !trimmed.isEmpty() && !trimmed.startsWith("```")) {
+                    paragraph.append(paragraph.length() > 0 ? " " : "").append(trimmed);
+                }
+            }
+            return paragraph.length() > 0 ? paragraph.toString() : null;
+        } catch (IOException e) {
+            logger.warn("Could not read {}: {}", pagePath, e.getMessage());
+            return null;
+        }
+    }
+
+    private String firstSentence(String text) {
+        String singleLine = text.strip().replaceAll("\\s+", " ");
+        int end = singleLine.indexOf(". ");
+        return end >= 0 ? singleLine.substring(0, end + 1) : singleLine;
+    }
+
+    private void populateExamples(JavaClassDoc classDoc) throws IOException {
+        if (methodExampleService != null) {
+            methodExampleService.populateExamples(classDoc);
+        }
+    }
+
+    /**
+     * Work that only a page which is actually generated needs, e.g. its usage example calls.
+     */
+    @FunctionalInterface
+    private interface PagePreparation {
+        void run() throws IOException;
+    }
+
+    /**
+     * Generates a page with the LLM and writes it, unless the checkpoint journal shows that
+     * the page was already generated from the same prompt and the file is still present.
+     *
+     * @param unitId Work unit id recorded in the checkpoint journal
+     * @param prompt Rendered prompt for the page
+     * @param pagePath Path of the page to write
+     * @throws IOException If an error occurs during file or journal writing
+     */
+    private void generatePage(String unitId, String prompt, Path pagePath) throws IOException {
+        generatePage(unitId, prompt, pagePath, UnaryOperator.identity());
+    }
+
+    /**
+     * Generates a page with the LLM, post-processes and writes it, unless the checkpoint journal
+     * shows that the page was already generated from the same prompt and the file is still present.
+     *
+     * @param unitId Work unit id recorded in the checkpoint journal
+     * @param prompt Rendered prompt for the page
+     * @param pagePath Path of the page to write
+     * @param postProcessor Transformation applied to the generated content before writing
+     * @throws IOException If an error occurs during file or journal writing
+     */
+    private void generatePage(String unitId, String prompt, Path pagePath, UnaryOperator<String> postProcessor) throws IOException {
+        generatePage(unitId, prompt, pagePath, () -> { }, postProcessor);
+    }
+
+    /**
+     * Generates a page with the LLM, post-processes and writes it, unless the checkpoint journal
+     * shows that the page was already generated from the same prompt and the file is still present.
+     * The preparation only runs for pages that are generated, so a skipped page costs no LLM calls.
+     *
+     * @param unitId Work unit id recorded in the checkpoint journal
+     * @param prompt Rendered prompt for the page
+     * @param pagePath Path of the page to write
+     * @param preparation Work run before the page is generated
+     * @param postProcessor Transformation applied to the generated content before writing
+     * @throws IOException If an error occurs during file or journal writing
+     */
+    private void generatePage(String unitId, String prompt, Path pagePath, PagePreparation preparation,
+                              UnaryOperator<String> postProcessor) throws IOException {
+        try (Tracing.Span span = Tracing.span(unitId, "llm")) {
+            span.arg("promptChars", prompt.length());
+            String inputHash = HashUtils.sha256(prompt);
+            // The same unit (e.g. "overview") exists once per module, so the journal is keyed by page as well
+            String journalKey = unitId + "@" + pagePath.normalize();
+            if (checkpointJournal != null && checkpointJournal.isCompleted(journalKey, inputHash) && Files.exists(pagePath)) {
+                logger.info("Skipping {}: already generated by a previous run", unitId);
+                span.arg("skipped", true);
+                return;
+            }
+            preparation.run();
+
+            // Generate content using the LLM
+            String content = postProcessor.apply(chat(unitId, prompt));
+            Files.writeString(pagePath, content);
+
+            if (checkpointJournal != null) {
+                checkpointJournal.recordCompleted(journalKey, inputHash);
+            }
+        }
+    }
+
+    /**
+     * Sends a prompt to the LLM and records the call with its token usage in the trace.
+     *
+     * @param unitId Work unit the call belongs to
+     * @param prompt Rendered prompt
+     * @return Generated text
+     */
+    private String chat(String unitId, String prompt) {
+        // Unit ids are "<page type>:<class>" or just the page type
+        int colon = unitId.indexOf(':');
+        try (Tracing.Span span = Tracing.span("chat", "llm")) {
+            span.arg("unit", unitId);
+            long start = System.nanoTime();
+            Response<AiMessage> response = TokenUsageService.attributed(colon < 0 ? unitId : unitId.substring(0, colon),
+                colon < 0 ? null : unitId.substring(colon + 1), () -> chatModel.generate(UserMessage.from(prompt)));
+            TokenUsage usage = response.tokenUsage();
+            if (usage != null) {
+                span.arg("inputTokens", usage.inputTokenCount()).arg("outputTokens", usage.outputTokenCount());
+                if (deadlineService != null && usage.outputTokenCount() != null) {
+                    deadlineService.recordCall(usage.outputTokenCount(), Duration.ofNanos(System.nanoTime() - start));
+                }
+            }
+            return response.content().text();
+        }
+    }
 }
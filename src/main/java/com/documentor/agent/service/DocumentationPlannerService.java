@@ -0,0 +1,246 @@
+package com.documentor.agent.service;
+
+import com.documentor.agent.config.DocumentorConfig;
+import com.documentor.agent.model.DocumentationPlan;
+import com.documentor.agent.model.JavaClassDoc;
+import com.documentor.agent.model.MethodDoc;
+import com.documentor.agent.model.PromptEstimate;
+import com.documentor.agent.model.RenderMode;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Service that estimates tokens, cost and wall-clock time of a documentation run
+ * by rendering every prompt locally instead of sending it to Azure OpenAI.
+ */
+public class DocumentationPlannerService {
+    private static final Logger logger = LoggerFactory.getLogger(DocumentationPlannerService.class);
+
+    // Expected completion sizes per page type, capped by AzureOpenAiService.MAX_TOKENS
+    public static final int OVERVIEW_OUTPUT_TOKENS = 1500;
+    public static final int GUIDE_OUTPUT_TOKENS = 2000;
+    private static final int CLASS_BASE_OUTPUT_TOKENS = 300;
+    private static final int OUTPUT_TOKENS_PER_METHOD = 250;
+    private static final int OUTPUT_TOKENS_PER_METHOD_WITHOUT_EXAMPLE = 150;
+    private static final int EXAMPLE_OUTPUT_TOKENS = 150;
+    private static final int CLASS_OVERVIEW_OUTPUT_TOKENS = 300;
+
+    private final DocumentationPromptService promptService;
+    private final TokenEstimator tokenEstimator;
+    private final int concurrency;
+    private final int requestsPerMinute;
+    private final int tokensPerMinute;
+    private final double inputPricePer1k;
+    private final double outputPricePer1k;
+    private final double outputTokensPerSecond;
+    private final double requestOverheadSeconds;
+    private final boolean separateMethodExamples;
+
+    public DocumentationPlannerService(DocumentorConfig config, DocumentationPromptService promptService) {
+        this.promptService = promptService;
+        this.tokenEstimator = new TokenEstimator();
+        this.concurrency = Math.max(1, config.getInt("DOCUMENTOR_CONCURRENCY", 4));
+        this.requestsPerMinute = Math.max(1, config.getInt("AZURE_OPENAI_RPM", 60));
+        this.tokensPerMinute = Math.max(1, config.getInt("AZURE_OPENAI_TPM", 80000));
+        this.inputPricePer1k = config.getDouble("AZURE_OPENAI_INPUT_PRICE_PER_1K", 0.0025);
+        this.outputPricePer1k = config.getDouble("AZURE_OPENAI_OUTPUT_PRICE_PER_1K", 0.01);
+        this.outputTokensPerSecond = Math.max(1.0, config.getDouble("AZURE_OPENAI_OUTPUT_TOKENS_PER_SECOND", 50.0));
+        this.requestOverheadSeconds = config.getDouble("AZURE_OPENAI_REQUEST_OVERHEAD_SECONDS", 1.0);
+        this.separateMethodExamples = config.getBoolean("DOCUMENTOR_METHOD_EXAMPLES", true);
+    }
+
+    /**
+     * Renders every prompt of a documentation run as configured and estimates its cost and duration.
+     *
+     * @param repositoryName Name of the GitHub repository
+     * @param classes List of parsed Java classes, which the guides describe
+     * @param overviews Classes each overview page describes, by page title; one page per module
+     * @param documentedClasses Classes that get their own class page, e.g. the representatives of a shard's groups
+     * @param renderMode How class pages are rendered; template runs make no LLM calls at all
+     * @param includeGuides Whether the run writes the getting started guide and FAQ
+     * @return Plan describing the estimated run
+     */
+    public DocumentationPlan plan(String repositoryName, List<JavaClassDoc> classes, Map<String, List<JavaClassDoc>> overviews,
+                                  List<JavaClassDoc> documentedClasses, RenderMode renderMode, boolean includeGuides) {
+        logger.info("Planning documentation run for {} ({} classes, {} class pages, {} overviews, {} mode)",
+            repositoryName, classes.size(), documentedClasses.size(), overviews.size(), renderMode);
+
+        List<PromptEstimate> prompts = new ArrayList<>();
+        if (renderMode != RenderMode.TEMPLATE) {
+            overviews.forEach((title, overviewClasses) -> prompts.add(estimate("OVERVIEW", title,
+                promptService.renderProjectOverviewPrompt(overviewClasses, title), OVERVIEW_OUTPUT_TOKENS)));
+            for (JavaClassDoc classDoc : documentedClasses) {
+                addClassPrompts(prompts, classDoc, renderMode);
+            }
+            if (includeGuides) {
+                prompts.add(estimate("GETTING_STARTED", repositoryName,
+                    promptService.renderGettingStartedPrompt(classes, repositoryName), GUIDE_OUTPUT_TOKENS));
+                prompts.add(estimate("FAQ", repositoryName,
+                    promptService.renderFaqPrompt(classes, repositoryName), GUIDE_OUTPUT_TOKENS));
+            }
+        }
+
+        long totalInput = prompts.stream().mapToLong(PromptEstimate::getInputTokens).sum();
+        long totalOutput = prompts.stream().mapToLong(PromptEstimate::getOutputTokens).sum();
+        double cost = totalInput / 1000.0 * inputPricePer1k + totalOutput / 1000.0 * outputPricePer1k;
+
+        // The run is bounded by whichever of concurrency, request rate and token rate is slowest
+        double totalLatencySeconds = 0;
+        double longestLatencySeconds = 0;
+        for (PromptEstimate prompt : prompts) {
+            double latency = requestOverheadSeconds + prompt.getOutputTokens() / outputTokensPerSecond;
+            totalLatencySeconds += latency;
+            longestLatencySeconds = Math.max(longestLatencySeconds, latency);
+        }
+        double concurrencySeconds = Math.max(longestLatencySeconds, totalLatencySeconds / concurrency);
+        double rpmSeconds = prompts.size() * 60.0 / requestsPerMinute;
+        double tpmSeconds = (totalInput + totalOutput) * 60.0 / tokensPerMinute;
+
+        double wallClockSeconds = concurrencySeconds;
+        String limitingFactor = "CONCURRENCY";
+        if (rpmSeconds > wallClockSeconds) {
+            wallClockSeconds = rpmSeconds;
+            limitingFactor = "REQUESTS_PER_MINUTE";
+        }
+        if (tpmSeconds > wallClockSeconds) {
+            wallClockSeconds = tpmSeconds;
+            limitingFactor = "TOKENS_PER_MINUTE";
+        }
+
+        return DocumentationPlan.builder()
+            .repositoryName(repositoryName)
+            .classCount(classes.size())
+            .renderMode(renderMode)
+            .prompts(prompts)
+            .totalInputTokens(totalInput)
+            .totalOutputTokens(totalOutput)
+            .estimatedCost(cost)
+            .estimatedWallClock(Duration.ofMillis(Math.round(wallClockSeconds * 1000)))
+            .limitingFactor(limitingFactor)
+            .concurrency(concurrency)
+            .requestsPerMinute(requestsPerMinute)
+            .tokensPerMinute(tokensPerMinute)
+            .build();
+    }
+
+    /**
+     * Adds the prompts of a class page in the given mode: the class prompt, or only an overview
+     * for an enriched page, plus the usage examples unless the page is reduced.
+     */
+    private void addClassPrompts(List<PromptEstimate> prompts, JavaClassDoc classDoc, RenderMode renderMode) {
+        switch (renderMode) {
+            case ENRICHED:
+                prompts.add(estimate("CLASS_OVERVIEW", classDoc.getFullyQualifiedName(),
+                    promptService.renderClassOverviewPrompt(classDoc), CLASS_OVERVIEW_OUTPUT_TOKENS));
+                break;
+            case REDUCED:
+                prompts.add(estimate("CLASS", classDoc.getFullyQualifiedName(),
+                    promptService.renderClassDocumentationPrompt(classDoc, false), reducedClassOutputTokens(classDoc)));
+                return;
+            default:
+                prompts.add(estimate("CLASS", classDoc.getFullyQualifiedName(),
+                    promptService.renderClassDocumentationPrompt(classDoc, !separateMethodExamples),
+                    expectedClassOutputTokens(classDoc)));
+                break;
+        }
+
+        if (separateMethodExamples) {
+            // Uncached examples cost one small call per public method
+            boolean isInterface = "INTERFACE".equals(classDoc.getType());
+            for (MethodDoc method : classDoc.getMethods()) {
+                if (method.isPublic() || isInterface) {
+                    prompts.add(estimate("METHOD_EXAMPLE", classDoc.getFullyQualifiedName() + "." + method.getName(),
+                        promptService.renderMethodExamplePrompt(classDoc, method), EXAMPLE_OUTPUT_TOKENS));
+                }
+            }
+        }
+    }
+
+    /**
+     * Estimates the completion size of a class documentation page, which grows with its method count.
+     *
+     * @param classDoc Class to document
+     * @return Expected output tokens
+     */
+    public int expectedClassOutputTokens(JavaClassDoc classDoc) {
+        int perMethod = separateMethodExamples ? OUTPUT_TOKENS_PER_METHOD_WITHOUT_EXAMPLE : OUTPUT_TOKENS_PER_METHOD;
+        return CLASS_BASE_OUTPUT_TOKENS + perMethod * classDoc.getMethods().size();
+    }
+
+    /**
+     * Estimates all output of documenting a class in full: its page plus the usage examples
+     * generated separately for its public methods.
+     *
+     * @param classDoc Class to document
+     * @return Expected output tokens
+     */
+    public int expectedClassWorkOutputTokens(JavaClassDoc classDoc) {
+        if (!separateMethodExamples) {
+            return expectedClassOutputTokens(classDoc);
+        }
+        boolean isInterface = "INTERFACE".equals(classDoc.getType());
+        long exampleMethods = classDoc.getMethods().stream().filter(m -> m.isPublic() || isInterface).count();
+        return expectedClassOutputTokens(classDoc) + EXAMPLE_OUTPUT_TOKENS * (int) exampleMethods;
+    }
+
+    /**
+     * Estimates the completion size of a reduced class page, which has no usage examples.
+     *
+     * @param classDoc Class to document
+     * @return Expected output tokens
+     */
+    public int reducedClassOutputTokens(JavaClassDoc classDoc) {
+        return CLASS_BASE_OUTPUT_TOKENS + OUTPUT_TOKENS_PER_METHOD_WITHOUT_EXAMPLE * classDoc.getMethods().size();
+    }
+
+    /**
+     * Formats a plan as a human-readable report.
+     *
+     * @param plan Plan to format
+     * @param largestPromptCount Number of largest prompts to list
+     * @return Report text
+     */
+    public String formatReport(DocumentationPlan plan, int largestPromptCount) {
+        StringBuilder report = new StringBuilder();
+        report.append("Documentation plan for ").append(plan.getRepositoryName()).append('\n');
+        report.append(String.format(Locale.ROOT, "  Classes:              %d%n", plan.getClassCount()));
+        report.append(String.format(Locale.ROOT, "  Class pages:          %s%n", plan.getRenderMode()));
+        report.append(String.format(Locale.ROOT, "  LLM calls:            %d%n", plan.getPrompts().size()));
+        report.append(String.format(Locale.ROOT, "  Input tokens:         %,d%n", plan.getTotalInputTokens()));
+        report.append(String.format(Locale.ROOT, "  Output tokens (est.): %,d%n", plan.getTotalOutputTokens()));
+        report.append(String.format(Locale.ROOT, "  Estimated cost:       $%.2f%n", plan.getEstimatedCost()));
+        report.append(String.format(Locale.ROOT, "  Estimated wall-clock: %s (limited by %s; concurrency=%d, RPM=%d, TPM=%d)%n",
+            formatDuration(plan.getEstimatedWallClock()), plan.getLimitingFactor(),
+            plan.getConcurrency(), plan.getRequestsPerMinute(), plan.getTokensPerMinute()));
+
+        report.append("  Largest prompts:\n");
+        plan.getPrompts().stream()
+            .sorted(Comparator.comparingInt(PromptEstimate::getInputTokens).reversed())
+            .limit(largestPromptCount)
+            .forEach(p -> report.append(String.format(Locale.ROOT, "    %,8d tokens  %-15s %s%n",
+                p.getInputTokens(), p.getPageType(), p.getTarget())));
+        return report.toString();
+    }
+
+    private PromptEstimate estimate(String pageType, String target, String prompt, int expectedOutputTokens) {
+        return PromptEstimate.builder()
+            .pageType(pageType)
+            .target(target)
+            .characters(prompt.length())
+            .inputTokens(tokenEstimator.estimateTokens(prompt))
+            .outputTokens(Math.min(expectedOutputTokens, AzureOpenAiService.MAX_TOKENS))
+            .build();
+    }
+
+    private String formatDuration(Duration duration) {
+        long seconds = duration.getSeconds();
+        return String.format(Locale.ROOT, "%dh %02dm %02ds", seconds / 3600, (seconds % 3600) / 60, seconds % 60);
+    }
+}
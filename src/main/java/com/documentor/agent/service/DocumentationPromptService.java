@@ -0,0 +1,453 @@
+package com.documentor.agent.service;
+
+import com.documentor.agent.model.JavaClassDoc;
+import com.documentor.agent.model.MethodDoc;
+import dev.langchain4j.model.input.Prompt;
+import dev.langchain4j.model.input.PromptTemplate;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Service that renders the prompts sent to the LLM for each documentation page.
+ * Rendering is kept separate from generation so prompts can be inspected or
+ * estimated without an Azure OpenAI connection.
+ */
+public class DocumentationPromptService {
+
+    /**
+     * Renders the prompt for the project overview (README.md).
+     *
+     * @param classes List of parsed Java classes
+     * @param repositoryName Name of the GitHub repository
+     * @return Rendered prompt text
+     */
+    public String renderProjectOverviewPrompt(List<JavaClassDoc> classes, String repositoryName) {
+        // Prepare data for the prompt
+        String classListSummary = classes.stream()
+            .map(c -> c.getFullyQualifiedName() + " (" + c.getType() + ")" + 
+                 (c.getDescription() != null ? ": " + c.getDescription() : ""))
+            .collect(Collectors.joining("\n"));
+        
+        // Count different types of classes
+        long interfaceCount = classes.stream().filter(c -> "INTERFACE".equals(c.getType())).count();
+        long classCount = classes.stream().filter(c -> "CLASS".equals(c.getType())).count();
+        long enumCount = classes.stream().filter(c -> "ENUM".equals(c.getType())).count();
+        
+        // Create prompt template for project overview
+        String projectOverviewTemplate = """
+            You are DocuMentor, an expert Java documentation specialist with deep knowledge of software architecture, design patterns, and Java best practices.
+            
+            # Task
+            Generate comprehensive project overview documentation in Markdown format for a Java project.
+            
+            # Project Information
+            Repository Name: {{repositoryName}}
+            Total Classes: {{totalClasses}}
+            - Regular Classes: {{classCount}}
+            - Interfaces: {{interfaceCount}}
+            - Enums: {{enumCount}}
+            
+            # Classes Summary
+            {{classSummary}}
+            
+            # Instructions
+            1. Create a professional README.md file with the following sections:
+               - Project Title and Brief Description
+               - Table of Contents
+               - Overview (project purpose and main functionality)
+               - Features
+               - Installation Instructions
+               - Getting Started Guide
+               - Prerequisites
+               - Link to API Documentation
+            
+            2. Make educated guesses about the project's purpose based on class names and descriptions.
+            3. The tone should be professional, concise, and technically precise.
+            4. Include relevant sections based on the project's nature.
+            5. Do not include placeholder text like "TODO" or "Insert here".
+            
+            # Output Format
+            Provide the complete README.md content in valid Markdown format.
+            """;
+        
+        PromptTemplate template = PromptTemplate.from(projectOverviewTemplate);
+        
+        Map<String, Object> variables = new HashMap<>();
+        variables.put("repositoryName", repositoryName);
+        variables.put("totalClasses", classes.size());
+        variables.put("classCount", classCount);
+        variables.put("interfaceCount", interfaceCount);
+        variables.put("enumCount", enumCount);
+        variables.put("classSummary", classListSummary);
+        
+        Prompt prompt = template.apply(variables);
+        return prompt.text();
+    }
+    
+    /**
+     * Renders the prompt for the detailed API documentation of a Java class.
+     *
+     * @param classDoc The Java class to document
+     * @return Rendered prompt text
+     */
+    public String renderClassDocumentationPrompt(JavaClassDoc classDoc) {
+        return renderClassDocumentationPrompt(classDoc, true);
+    }
+    
+    /**
+     * Renders the prompt for the detailed API documentation of a Java class.
+     *
+     * @param classDoc The Java class to document
+     * @param includeUsageExamples Whether the LLM should write a usage example per method,
+     *                             or leave them out because they are generated separately
+     * @return Rendered prompt text
+     */
+    public String renderClassDocumentationPrompt(JavaClassDoc classDoc, boolean includeUsageExamples) {
+        // Create a summary of methods
+        String methodsSummary = classDoc.getMethods().stream()
+            .map(m -> m.getName() + "(" + 
+                m.getParameters().stream()
+                    .map(p -> p.getType() + " " + p.getName())
+                    .collect(Collectors.joining(", ")) + 
+                "): " + m.getReturnType())
+            .collect(Collectors.joining("\n"));
+        
+        // Class documentation template
+        String classDocTemplate = """
+            You are DocuMentor, an expert Java documentation specialist with deep knowledge of software architecture, design patterns, and Java best practices.
+            
+            # Task
+            Generate detailed class documentation in Markdown format for a Java class.
+            
+            # Class Information
+            Class Name: {{className}}
+            Package: {{packageName}}
+            Type: {{classType}}
+            Description: {{classDescription}}
+            
+            # Class Details
+            ```java
+            {{sourceCode}}
+            ```
+            
+            # Methods Summary
+            {{methodsSummary}}
+            
+            # Instructions
+            1. Create professional, detailed class documentation following Oracle Java Documentation Standards.
+            2. Include the following sections:
+               - Class Name and Package
+               - Overview
+               - Dependencies (classes this class depends on)
+               - Public Methods summary with links to detailed method sections
+               - Detailed documentation for each method
+            
+            3. For each method, document:
+               - Method signature
+               - Description
+               - Parameters with descriptions
+               - Return value with description
+               - Exceptions with conditions
+               - {{usageExampleInstruction}}
+            
+            4. Use Technical Precision Mode:
+               - Prioritize precision over readability
+               - Include all technical details and edge cases
+               - Use formal technical language
+               - Focus on correctness and completeness
+            
+            # Output Format
+            Provide the complete class documentation in valid Markdown format.
+            """;
+        
+        PromptTemplate template = PromptTemplate.from(classDocTemplate);
+        
+        Map<String, Object> variables = new HashMap<>();
+        variables.put("className", classDoc.getName());
+        variables.put("packageName", classDoc.getPackageName());
+        variables.put("classType", classDoc.getType());
+        variables.put("classDescription", classDoc.getDescription() != null ? classDoc.getDescription() : "");
+        variables.put("sourceCode", classDoc.getSourceCode());
+        variables.put("methodsSummary", methodsSummary);
+        variables.put("usageExampleInstruction", includeUsageExamples
+            ? "Usage example (create a simple, realistic example)"
+            : "No usage examples (they are added separately)");
+        
+        Prompt prompt = template.apply(variables);
+        return prompt.text();
+    }
+    
+    /**
+     * Renders the prompt for a usage example of a single method.
+     *
+     * @param classDoc The class declaring the method
+     * @param method The method to write an example for
+     * @return Rendered prompt text
+     */
+    public String renderMethodExamplePrompt(JavaClassDoc classDoc, MethodDoc method) {
+        String methodExampleTemplate = """
+            You are DocuMentor, an expert Java documentation specialist.
+            
+            # Task
+            Write a short, realistic usage example for one method of a Java class.
+            
+            # Method Information
+            Class: {{className}}
+            Method Signature: {{signature}}
+            Description: {{description}}
+            
+            ```java
+            {{sourceCode}}
+            ```
+            
+            # Instructions
+            1. Show how a caller obtains or creates a {{className}} and invokes the method.
+            2. Keep the example under 15 lines and use meaningful variable names.
+            3. Do not explain the example.
+            
+            # Output Format
+            Provide only a single ```java code block.
+            """;
+        
+        PromptTemplate template = PromptTemplate.from(methodExampleTemplate);
+        
+        Map<String, Object> variables = new HashMap<>();
+        variables.put("className", classDoc.getFullyQualifiedName());
+        variables.put("signature", method.getSignature());
+        variables.put("description", method.getDescription() != null ? method.getDescription() : "");
+        variables.put("sourceCode", method.getSourceCode() != null ? method.getSourceCode() : method.getSignature());
+
+        Prompt prompt = template.apply(variables);
+        return prompt.text();
+    }
+
+    /**
+     * Renders the prompt that asks only for the sections missing from a class documentation page.
+     * The class is described by signatures and Javadoc only, to keep the repair call small.
+     *
+     * @param classDoc The class the page documents
+     * @param sections Missing sections: "Overview" and/or names of methods
+     * @return Rendered prompt text
+     */
+    public String renderSectionRepairPrompt(JavaClassDoc classDoc, List<String> sections) {
+        String methodsSummary = classDoc.getMethods().stream()
+            .filter(m -> sections.contains(m.getName()))
+            .map(m -> m.getSignature()
+                + (m.getDescription() != null && !m.getDescription().isBlank() ? "\n  " + m.getDescription().strip() : ""))
+            .collect(Collectors.joining("\n"));
+
+        String requestedHeadings = sections.stream()
+            .map(s -> s.equals("Overview") ? "## Overview" : "### " + s)
+            .collect(Collectors.joining("\n"));
+
+        String sectionRepairTemplate = """
+            You are DocuMentor, an expert Java documentation specialist.
+
+            # Task
+            An existing documentation page for a Java class is missing some sections. Write only those sections.
+
+            # Class Information
+            Class Name: {{className}}
+            Package: {{packageName}}
+            Type: {{classType}}
+            Description: {{classDescription}}
+
+            # Methods
+            {{methodsSummary}}
+
+            # Sections to Write
+            {{requestedHeadings}}
+
+            # Instructions
+            1. Use exactly the headings listed above, in that order, and nothing else.
+            2. For each method, document the signature, description, parameters, return value and exceptions.
+            3. Close every code block you open.
+
+            # Output Format
+            Provide only the requested sections in valid Markdown format.
+            """;
+
+        PromptTemplate template = PromptTemplate.from(sectionRepairTemplate);
+
+        Map<String, Object> variables = new HashMap<>();
+        variables.put("className", classDoc.getName());
+        variables.put("packageName", classDoc.getPackageName());
+        variables.put("classType", classDoc.getType());
+        variables.put("classDescription", classDoc.getDescription() != null ? classDoc.getDescription() : "");
+        variables.put("methodsSummary", methodsSummary.isEmpty() ? "(none requested)" : methodsSummary);
+        variables.put("requestedHeadings", requestedHeadings);
+
+        Prompt prompt = template.apply(variables);
+        return prompt.text();
+    }
+
+    /**
+     * Renders the prompt for the overview of a class page whose other sections are rendered from
+     * the parsed model. The class is described by signatures and Javadoc only.
+     *
+     * @param classDoc The class the page documents
+     * @return Rendered prompt text
+     */
+    public String renderClassOverviewPrompt(JavaClassDoc classDoc) {
+        String methodsSummary = classDoc.getMethods().stream()
+            .map(m -> m.getSignature()
+                + (m.getDescription() != null && !m.getDescription().isBlank() ? "\n  " + m.getDescription().strip() : ""))
+            .collect(Collectors.joining("\n"));
+
+        String classOverviewTemplate = """
+            You are DocuMentor, an expert Java documentation specialist.
+
+            # Task
+            Write the overview of a documentation page for a Java class. The rest of the page, including
+            the method reference, is generated from the source code.
+
+            # Class Information
+            Class Name: {{className}}
+            Package: {{packageName}}
+            Type: {{classType}}
+            Description: {{classDescription}}
+
+            # Methods
+            {{methodsSummary}}
+
+            # Instructions
+            1. Explain the purpose of the class, its responsibilities and how it is typically used.
+            2. Do not repeat the method reference and do not include code examples.
+            3. Do not use headings.
+
+            # Output Format
+            Provide one or two paragraphs in valid Markdown format.
+            """;
+
+        PromptTemplate template = PromptTemplate.from(classOverviewTemplate);
+
+        Map<String, Object> variables = new HashMap<>();
+        variables.put("className", classDoc.getName());
+        variables.put("packageName", classDoc.getPackageName());
+        variables.put("classType", classDoc.getType());
+        variables.put("classDescription", classDoc.getDescription() != null ? classDoc.getDescription() : "");
+        variables.put("methodsSummary", methodsSummary.isEmpty() ? "(none)" : methodsSummary);
+
+        Prompt prompt = template.apply(variables);
+        return prompt.text();
+    }
+
+    /**
+     * Renders the prompt for the getting started guide.
+     *
+     * @param classes List of parsed Java classes
+     * @param repositoryName Name of the GitHub repository
+     * @return Rendered prompt text
+     */
+    public String renderGettingStartedPrompt(List<JavaClassDoc> classes, String repositoryName) {
+        // Find public classes that might be entry points or main components
+        List<String> mainClasses = classes.stream()
+            .filter(JavaClassDoc::isPublic)
+            .map(JavaClassDoc::getFullyQualifiedName)
+            .collect(Collectors.toList());
+        
+        // Getting started guide template
+        String gettingStartedTemplate = """
+            You are DocuMentor, an expert Java documentation specialist with deep knowledge of software architecture, design patterns, and Java best practices.
+            
+            # Task
+            Generate a comprehensive "Getting Started" guide in Markdown format for a Java project.
+            
+            # Project Information
+            Repository Name: {{repositoryName}}
+            Main Public Classes:
+            {{mainClasses}}
+            
+            # Instructions
+            1. Create a beginner-friendly getting started guide with:
+               - Quick Start section with basic usage examples
+               - Common use cases with code examples
+               - Configuration options
+               - Best practices
+            
+            2. Use Developer Guide Mode:
+               - Balance precision with readability
+               - Include practical examples and common use cases
+               - Use approachable yet professional language
+               - Focus on helping developers accomplish tasks
+            
+            3. Include code snippets that demonstrate:
+               - How to initialize/configure the library
+               - How to use the most important features
+               - How to handle common errors
+            
+            # Output Format
+            Provide the complete getting-started.md content in valid Markdown format.
+            """;
+        
+        PromptTemplate template = PromptTemplate.from(gettingStartedTemplate);
+        
+        Map<String, Object> variables = new HashMap<>();
+        variables.put("repositoryName", repositoryName);
+        variables.put("mainClasses", String.join("\n", mainClasses));
+        
+        Prompt prompt = template.apply(variables);
+        return prompt.text();
+    }
+    
+    /**
+     * Renders the prompt for the FAQ and troubleshooting guide.
+     *
+     * @param classes List of parsed Java classes
+     * @param repositoryName Name of the GitHub repository
+     * @return Rendered prompt text
+     */
+    public String renderFaqPrompt(List<JavaClassDoc> classes, String repositoryName) {
+        // Collect exception information from methods to identify potential issues
+        List<String> exceptionTypes = classes.stream()
+            .flatMap(c -> c.getMethods().stream())
+            .flatMap(m -> m.getExceptions() != null ? m.getExceptions().stream() : List.<String>of().stream())
+            .distinct()
+            .collect(Collectors.toList());
+        
+        // FAQ template
+        String faqTemplate = """
+            You are DocuMentor, an expert Java documentation specialist with deep knowledge of software architecture, design patterns, and Java best practices.
+            
+            # Task
+            Generate an FAQ and troubleshooting guide in Markdown format for a Java project.
+            
+            # Project Information
+            Repository Name: {{repositoryName}}
+            Exception Types Found:
+            {{exceptionTypes}}
+            
+            # Instructions
+            1. Create a helpful FAQ and troubleshooting guide with:
+               - Common questions about installation and setup
+               - Usage questions and answers
+               - Troubleshooting for common errors and exceptions
+               - Performance tips
+            
+            2. Based on the exceptions found in the codebase, create troubleshooting entries that:
+               - Explain what might cause each exception
+               - Provide solutions to resolve the issues
+               - Include code examples showing proper handling
+            
+            3. Use Developer Guide Mode:
+               - Balance precision with readability
+               - Use approachable yet professional language
+               - Focus on practical solutions
+            
+            # Output Format
+            Provide the complete faq.md content in valid Markdown format.
+            """;
+        
+        PromptTemplate template = PromptTemplate.from(faqTemplate);
+        
+        Map<String, Object> variables = new HashMap<>();
+        variables.put("repositoryName", repositoryName);
+        variables.put("exceptionTypes", String.join("\n", exceptionTypes));
+        
+        Prompt prompt = template.apply(variables);
+        return prompt.text();
+    }
+}
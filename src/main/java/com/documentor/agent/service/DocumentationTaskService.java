@@ -0,0 +1,303 @@
+package com.documentor.agent.service;
+
+import com.documentor.agent.model.ClassGroup;
+import com.documentor.agent.model.JavaClassDoc;
+import com.documentor.agent.model.PromptFidelity;
+import com.documentor.agent.model.RenderMode;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Service that turns a set of parsed classes into documentation tasks of a {@link TaskGraphScheduler}:
+ * an overview, one task per class group and one package summary per package that waits for the
+ * class pages it is built from.
+ * <p>
+ * With a deadline or a token budget, tasks run in order of importance (public API classes, then
+ * overview pages, then internal classes) and each page asks the {@link DeadlineService} and the
+ * {@link TokenUsageService} how it is rendered when it starts; the cheaper answer wins.
+ */
+public class DocumentationTaskService {
+    private static final Logger logger = LoggerFactory.getLogger(DocumentationTaskService.class);
+    private static final int PUBLIC_API_IMPORTANCE = 2;
+    private static final int OVERVIEW_IMPORTANCE = 1;
+    private static final int INTERNAL_IMPORTANCE = 0;
+    private static final Pattern INTERNAL_PACKAGE = Pattern.compile("(^|\\.)(internal|impl)(\\.|$)");
+
+    private final DocumentationGeneratorService generatorService;
+    private final JavaParserService javaParserService;
+    private final StructuralDeduplicationService deduplicationService;
+    private final PromptFidelityService promptFidelityService;
+    private final DocumentationPlannerService plannerService;
+    private DeadlineService deadlineService;
+    private TokenUsageService tokenUsageService;
+    private RenderMode renderMode = RenderMode.FULL;
+
+    public DocumentationTaskService(DocumentationGeneratorService generatorService, JavaParserService javaParserService,
+                                    StructuralDeduplicationService deduplicationService,
+                                    PromptFidelityService promptFidelityService,
+                                    DocumentationPlannerService plannerService) {
+        this.generatorService = generatorService;
+        this.javaParserService = javaParserService;
+        this.deduplicationService = deduplicationService;
+        this.promptFidelityService = promptFidelityService;
+        this.plannerService = plannerService;
+    }
+
+    /**
+     * Sets the service that decides how pages are rendered to finish before a deadline.
+     *
+     * @param deadlineService Deadline service, or null to generate every page in full
+     */
+    public void setDeadlineService(DeadlineService deadlineService) {
+        this.deadlineService = deadlineService;
+    }
+
+    /**
+     * Sets the service that decides how pages are rendered to stay within the token budgets.
+     *
+     * @param tokenUsageService Token usage service, or null to generate every page in full
+     */
+    public void setTokenUsageService(TokenUsageService tokenUsageService) {
+        this.tokenUsageService = tokenUsageService;
+    }
+
+    /**
+     * Sets the richest mode class pages are rendered in. Overview pages and guides are generated by
+     * the LLM unless the mode is {@link RenderMode#TEMPLATE}.
+     *
+     * @param renderMode Render mode of the run
+     */
+    public void setRenderMode(RenderMode renderMode) {
+        this.renderMode = renderMode;
+    }
+
+    /**
+     * Adds the overview, class page and package summary tasks for a set of classes.
+     *
+     * @param graph Graph to add the tasks to
+     * @param taskPrefix Prefix making the task ids unique, e.g. the module name
+     * @param title Name used in the overview, e.g. the repository or module name
+     * @param classes Classes to document
+     * @param classGroups Structurally identical groups of these classes
+     * @param outputPath Directory to write the documentation to
+     */
+    public void addClassDocumentationTasks(TaskGraphScheduler graph, String taskPrefix, String title,
+                                           List<JavaClassDoc> classes, List<ClassGroup> classGroups, Path outputPath) {
+        addProjectOverviewTask(graph, taskPrefix, title, classes, outputPath);
+
+        Map<String, List<String>> classTasksByPackage = new TreeMap<>();
+        Map<String, List<JavaClassDoc>> classesByPackage = new TreeMap<>();
+        for (ClassGroup group : classGroups) {
+            String taskId = addClassTask(graph, taskPrefix, group, outputPath);
+            List<JavaClassDoc> groupClasses = new ArrayList<>(group.getMembers());
+            groupClasses.add(group.getRepresentative());
+            for (JavaClassDoc classDoc : groupClasses) {
+                List<String> packageTasks = classTasksByPackage.computeIfAbsent(classDoc.getPackageName(), k -> new ArrayList<>());
+                if (!packageTasks.contains(taskId)) {
+                    packageTasks.add(taskId);
+                }
+                classesByPackage.computeIfAbsent(classDoc.getPackageName(), k -> new ArrayList<>()).add(classDoc);
+            }
+        }
+        for (Map.Entry<String, List<String>> entry : classTasksByPackage.entrySet()) {
+            addPackageSummaryTask(graph, taskPrefix, entry.getKey(), classesByPackage.get(entry.getKey()),
+                entry.getValue(), outputPath);
+        }
+    }
+
+    /**
+     * Adds the overview and package summary tasks for classes whose pages were already written,
+     * e.g. by the shards of a run.
+     *
+     * @param graph Graph to add the tasks to
+     * @param taskPrefix Prefix making the task ids unique, e.g. the module name
+     * @param title Name used in the overview, e.g. the repository or module name
+     * @param classes Documented classes
+     * @param outputPath Directory the class pages were written to
+     */
+    public void addSummaryTasks(TaskGraphScheduler graph, String taskPrefix, String title,
+                                List<JavaClassDoc> classes, Path outputPath) {
+        addProjectOverviewTask(graph, taskPrefix, title, classes, outputPath);
+        classes.stream()
+            .collect(Collectors.groupingBy(JavaClassDoc::getPackageName, TreeMap::new, Collectors.toList()))
+            .forEach((packageName, packageClasses) ->
+                addPackageSummaryTask(graph, taskPrefix, packageName, packageClasses, List.of(), outputPath));
+    }
+
+    /**
+     * Adds the project overview task for a set of classes.
+     *
+     * @param graph Graph to add the task to
+     * @param taskPrefix Prefix making the task id unique, e.g. the module name
+     * @param title Name used in the overview, e.g. the repository or module name
+     * @param classes Classes the overview describes
+     * @param outputPath Directory to write the documentation to
+     */
+    public void addProjectOverviewTask(TaskGraphScheduler graph, String taskPrefix, String title,
+                                       List<JavaClassDoc> classes, Path outputPath) {
+        addOverviewTask(graph, taskPrefix + "overview", DocumentationPlannerService.OVERVIEW_OUTPUT_TOKENS,
+            mode -> generatorService.generateProjectOverview(classes, title, outputPath, mode));
+    }
+
+    /**
+     * Adds the task documenting a group of structurally identical classes: the representative's
+     * page is generated and the members' pages are derived from it.
+     *
+     * @param graph Graph to add the task to
+     * @param taskPrefix Prefix making the task id unique, e.g. the module name
+     * @param group Classes to document
+     * @param outputPath Directory to write the documentation to
+     * @return Id of the added task
+     */
+    public String addClassTask(TaskGraphScheduler graph, String taskPrefix, ClassGroup group, Path outputPath) {
+        JavaClassDoc representative = group.getRepresentative();
+        String taskId = taskPrefix + "class:" + representative.getFullyQualifiedName();
+        long fullTokens = plannerService.expectedClassWorkOutputTokens(representative);
+        long reducedTokens = plannerService.reducedClassOutputTokens(representative);
+        registerPage(fullTokens);
+        int importance = importance(isPublicApi(representative) ? PUBLIC_API_IMPORTANCE : INTERNAL_IMPORTANCE);
+        graph.addTask(taskId, importance, plannerService.expectedClassOutputTokens(representative), List.of(), () -> {
+            RenderMode budgetMode = beginBudget(fullTokens, reducedTokens);
+            try {
+                RenderMode mode = classRenderMode(fullTokens, reducedTokens, budgetMode);
+                // Only classes that get their own class prompt need their source; usage examples need the method bodies
+                boolean prepared = true;
+                if (mode == RenderMode.FULL) {
+                    prepared = promptFidelityService.prepare(representative);
+                } else if (mode == RenderMode.REDUCED) {
+                    prepared = promptFidelityService.prepare(representative, PromptFidelity.SIGNATURES);
+                } else if (mode == RenderMode.ENRICHED) {
+                    prepared = javaParserService.materializeSource(representative, PromptFidelity.SIGNATURES);
+                }
+                if (!prepared) {
+                    logger.warn("Source of {} could not be read again; rendering its page from the parsed signatures",
+                        representative.getFullyQualifiedName());
+                    mode = RenderMode.TEMPLATE;
+                }
+                Path representativeDoc = generatorService.generateClassDocumentation(representative, outputPath, mode);
+                javaParserService.releaseSource(representative);
+                for (JavaClassDoc member : group.getMembers()) {
+                    deduplicationService.writeDerivedDocumentation(representative, representativeDoc,
+                        member, representativeDoc.resolveSibling(member.getName() + ".md"));
+                }
+            } finally {
+                endBudget(budgetMode, fullTokens, reducedTokens);
+            }
+        });
+        return taskId;
+    }
+
+    /**
+     * Adds the summary task of a package, which runs once the pages of its classes are written.
+     *
+     * @param graph Graph to add the task to
+     * @param taskPrefix Prefix making the task id unique, e.g. the module name
+     * @param packageName Name of the package
+     * @param classes All classes of the package
+     * @param dependencies Ids of the tasks writing the pages of these classes
+     * @param outputPath Directory to write the documentation to
+     */
+    public void addPackageSummaryTask(TaskGraphScheduler graph, String taskPrefix, String packageName,
+                                      List<JavaClassDoc> classes, List<String> dependencies, Path outputPath) {
+        graph.addTask(taskPrefix + "package:" + packageName, 1, dependencies,
+            () -> generatorService.generatePackageSummary(packageName, classes, outputPath));
+    }
+
+    /**
+     * Adds the getting started guide and FAQ tasks, which cover the whole repository.
+     *
+     * @param graph Graph to add the tasks to
+     * @param classes All classes of the repository
+     * @param repositoryName Name of the repository
+     * @param outputPath Directory to write the documentation to
+     */
+    public void addGuideTasks(TaskGraphScheduler graph, List<JavaClassDoc> classes, String repositoryName, Path outputPath) {
+        addOverviewTask(graph, "getting-started", DocumentationPlannerService.GUIDE_OUTPUT_TOKENS,
+            mode -> generatorService.generateGettingStartedGuide(classes, repositoryName, outputPath, mode));
+        addOverviewTask(graph, "faq", DocumentationPlannerService.GUIDE_OUTPUT_TOKENS,
+            mode -> generatorService.generateFaqAndTroubleshooting(classes, repositoryName, outputPath, mode));
+    }
+
+    /**
+     * Work of an overview page, given how it is rendered.
+     */
+    @FunctionalInterface
+    private interface PageAction {
+        void run(RenderMode mode) throws Exception;
+    }
+
+    private void addOverviewTask(TaskGraphScheduler graph, String taskId, int outputTokens, PageAction action) {
+        if (renderMode == RenderMode.TEMPLATE) {
+            graph.addTask(taskId, outputTokens, List.of(), () -> action.run(RenderMode.TEMPLATE));
+            return;
+        }
+        registerPage(outputTokens);
+        graph.addTask(taskId, importance(OVERVIEW_IMPORTANCE), outputTokens, List.of(), () -> {
+            RenderMode budgetMode = beginBudget(outputTokens, 0);
+            try {
+                RenderMode mode = deadlineService != null ? deadlineService.begin(outputTokens, 0) : RenderMode.FULL;
+                action.run(cheaper(mode, budgetMode));
+            } finally {
+                endBudget(budgetMode, outputTokens, 0);
+            }
+        });
+    }
+
+    /**
+     * Chooses how a class page is rendered: the run's render mode, or a cheaper one if the deadline
+     * or the token budget requires it.
+     */
+    private RenderMode classRenderMode(long fullTokens, long reducedTokens, RenderMode budgetMode) {
+        if (renderMode == RenderMode.TEMPLATE) {
+            return RenderMode.TEMPLATE;
+        }
+        RenderMode mode = deadlineService != null ? deadlineService.begin(fullTokens, reducedTokens) : RenderMode.FULL;
+        return cheaper(cheaper(mode, budgetMode), renderMode);
+    }
+
+    private void registerPage(long fullTokens) {
+        if (renderMode == RenderMode.TEMPLATE) {
+            return;
+        }
+        if (deadlineService != null) {
+            deadlineService.registerPage(fullTokens);
+        }
+        if (tokenUsageService != null) {
+            tokenUsageService.registerPage(fullTokens);
+        }
+    }
+
+    private RenderMode beginBudget(long fullTokens, long reducedTokens) {
+        return tokenUsageService != null && renderMode != RenderMode.TEMPLATE
+            ? tokenUsageService.begin(fullTokens, reducedTokens)
+            : RenderMode.FULL;
+    }
+
+    private void endBudget(RenderMode budgetMode, long fullTokens, long reducedTokens) {
+        if (tokenUsageService != null && renderMode != RenderMode.TEMPLATE) {
+            tokenUsageService.end(budgetMode, fullTokens, reducedTokens);
+        }
+    }
+
+    private static RenderMode cheaper(RenderMode mode, RenderMode other) {
+        return mode.ordinal() > other.ordinal() ? mode : other;
+    }
+
+    private int importance(int importance) {
+        // Without a deadline or budget every page is generated anyway, so tasks are ordered for the shortest run
+        return deadlineService != null || (tokenUsageService != null && tokenUsageService.hasBudget()) ? importance : 0;
+    }
+
+    private boolean isPublicApi(JavaClassDoc classDoc) {
+        return classDoc.isPublic() && !INTERNAL_PACKAGE.matcher(classDoc.getPackageName()).find();
+    }
+}
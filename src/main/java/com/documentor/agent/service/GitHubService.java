@@ -1,5 +1,7 @@
 package com.documentor.agent.service;
 
+import com.documentor.agent.config.DocumentorConfig;
+import com.documentor.agent.util.Tracing;
 import io.github.cdimascio.dotenv.Dotenv;
 import org.eclipse.jgit.api.Git;
 import org.eclipse.jgit.api.errors.GitAPIException;
@@ -11,6 +13,7 @@ import java.io.File;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.time.Duration;
 import java.util.Comparator;
 
 /**
@@ -18,8 +21,21 @@ import java.util.Comparator;
  */
 public class GitHubService {
     private static final Logger logger = LoggerFactory.getLogger(GitHubService.class);
-    private final Dotenv dotenv;    public GitHubService(Dotenv dotenv) {
+    private final Dotenv dotenv;
+    private final RepositoryMirrorService mirrorService;
+
+    public GitHubService(Dotenv dotenv) {
         this.dotenv = dotenv;
+        DocumentorConfig config = new DocumentorConfig(dotenv);
+        // Keep a persistent mirror per repository so repeated runs only fetch the changes
+        if (config.getBoolean("DOCUMENTOR_MIRROR_CACHE", true)) {
+            Path mirrorsDirectory = Path.of(config.getString("DOCUMENTOR_STATE_DIR", ".documentor")).resolve("mirrors");
+            this.mirrorService = new RepositoryMirrorService(mirrorsDirectory,
+                Duration.ofDays(config.getLong("DOCUMENTOR_MIRROR_MAX_AGE_DAYS", 30)),
+                config.getLong("DOCUMENTOR_MIRROR_MAX_SIZE_MB", 10240) * 1024 * 1024);
+        } else {
+            this.mirrorService = null;
+        }
     }
     
     /**
@@ -31,14 +47,69 @@ public class GitHubService {
      * @throws IOException     If there is an IO error
      */
     public Path cloneRepository(String repoUrl) throws GitAPIException, IOException {
+        return cloneRepository(repoUrl, false);
+    }
+
+    /**
+     * Clones a GitHub repository to a local directory, optionally reusing a clone
+     * left behind by an interrupted run.
+     *
+     * @param repoUrl GitHub repository URL (e.g., "https://github.com/username/repo.git")
+     * @param reuseExisting Whether to reuse an existing clone instead of cloning again
+     * @return Path to the cloned repository
+     * @throws GitAPIException If there is an error with Git operations
+     * @throws IOException     If there is an IO error
+     */
+    public Path cloneRepository(String repoUrl, boolean reuseExisting) throws GitAPIException, IOException {
+        return cloneRepository(repoUrl, reuseExisting, null);
+    }
+
+    /**
+     * Clones a GitHub repository to a local directory with a suffixed name, so that processes
+     * working on the same repository at once do not share or delete each other's clone.
+     *
+     * @param repoUrl GitHub repository URL (e.g., "https://github.com/username/repo.git")
+     * @param reuseExisting Whether to reuse an existing clone instead of cloning again
+     * @param directorySuffix Suffix of the clone directory name, or null for none
+     * @return Path to the cloned repository
+     * @throws GitAPIException If there is an error with Git operations
+     * @throws IOException     If there is an IO error
+     */
+    public Path cloneRepository(String repoUrl, boolean reuseExisting, String directorySuffix) throws GitAPIException, IOException {
+        try (Tracing.Span span = Tracing.span("clone", "git")) {
+            span.arg("url", repoUrl).arg("reuseExisting", reuseExisting);
+            return cloneOrReuse(repoUrl, reuseExisting, directorySuffix);
+        }
+    }
+
+    private Path cloneOrReuse(String repoUrl, boolean reuseExisting, String directorySuffix) throws GitAPIException, IOException {
         // Create directory in c:\githublocal
         String repoName = extractRepositoryName(repoUrl);
-        Path targetDir = Path.of("c:\\githublocal", repoName);
+        Path targetDir = Path.of("c:\\githublocal", directorySuffix != null ? repoName + directorySuffix : repoName);
+        if (Files.isDirectory(targetDir.resolve(".git")) || Files.exists(targetDir.resolve(RepositoryMirrorService.HEAD_MARKER))) {
+            if (reuseExisting) {
+                logger.info("Reusing existing clone of {} at {}", repoUrl, targetDir);
+                return targetDir;
+            }
+            // A stale clone from an interrupted run would make the clone fail
+            cleanupDirectory(targetDir);
+        }
         Files.createDirectories(targetDir);
         logger.info("Cloning repository {} to {}", repoUrl, targetDir);
 
         // Check if a GitHub token is provided for private repositories
         String githubToken = dotenv.get("GITHUB_TOKEN");
+        if (mirrorService != null) {
+            try {
+                mirrorService.checkout(repoUrl, githubToken != null && !githubToken.isEmpty()
+                    ? new UsernamePasswordCredentialsProvider(githubToken, "") : null, targetDir);
+                return targetDir;
+            } catch (GitAPIException | IOException e) {
+                logger.error("Failed to check out repository from mirror: {}", e.getMessage(), e);
+                cleanupDirectory(targetDir);
+                throw e;
+            }
+        }
           try {
             if (githubToken != null && !githubToken.isEmpty()) {
                 // Use token for authentication if provided
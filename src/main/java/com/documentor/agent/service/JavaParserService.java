@@ -4,50 +4,74 @@ import com.documentor.agent.model.FieldDoc;
 import com.documentor.agent.model.JavaClassDoc;
 import com.documentor.agent.model.MethodDoc;
 import com.documentor.agent.model.ParameterDoc;
+import com.documentor.agent.model.PromptFidelity;
+import com.documentor.agent.util.HashUtils;
+import com.documentor.agent.util.Tracing;
 import com.github.javaparser.JavaParser;
 import com.github.javaparser.ParseResult;
+import com.github.javaparser.ParserConfiguration;
+import com.github.javaparser.ParserConfiguration.LanguageLevel;
+import com.github.javaparser.Position;
 import com.github.javaparser.ast.CompilationUnit;
+import com.github.javaparser.ast.Modifier;
+import com.github.javaparser.ast.Node;
 import com.github.javaparser.ast.NodeList;
 import com.github.javaparser.ast.body.*;
+import com.github.javaparser.ast.comments.Comment;
 import com.github.javaparser.ast.comments.JavadocComment;
+import com.github.javaparser.ast.comments.LineComment;
 import com.github.javaparser.ast.expr.AnnotationExpr;
 import com.github.javaparser.ast.expr.MemberValuePair;
+import com.github.javaparser.ast.nodeTypes.NodeWithJavadoc;
+import com.github.javaparser.ast.nodeTypes.NodeWithModifiers;
+import com.github.javaparser.ast.stmt.BlockStmt;
 import com.github.javaparser.ast.type.ClassOrInterfaceType;
+import com.github.javaparser.ast.type.ReferenceType;
 import com.github.javaparser.ast.type.Type;
+import com.github.javaparser.javadoc.Javadoc;
 import com.github.javaparser.javadoc.JavadocBlockTag;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.File;
 import java.io.IOException;
-import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.*;
+import java.util.function.Function;
+import java.util.regex.Pattern;
 import java.util.stream.Collectors;
-import java.util.stream.Stream;
 
 /**
  * Service to parse Java source files and extract relevant documentation data.
+ * <p>
+ * In signature mode only names, signatures, Javadoc and exceptions are extracted: comments are
+ * not attributed across the tree (Javadoc is matched to declarations by position instead), lexical
+ * preservation is off and no source text is rendered. Source is materialized on demand with
+ * {@link #materializeSource(JavaClassDoc)} for classes that get a source-bearing prompt.
  */
 public class JavaParserService {
     private static final Logger logger = LoggerFactory.getLogger(JavaParserService.class);
-
+    
+    private final ParserConfiguration fullConfiguration;
+    private final ParserConfiguration signatureConfiguration;
+    private final boolean signaturesOnly;
+    
+    public JavaParserService() {
+        this(LanguageLevel.JAVA_17, false);
+    }
+    
     /**
-     * Find all Java files in the given repository path.
-     *
-     * @param repoPath Path to the repository
-     * @return List of Java file paths
-     * @throws IOException If there is an error accessing the files
+     * @param languageLevel Java language level to parse sources with
+     * @param signaturesOnly Whether to extract signatures and Javadoc only, without source text
      */
-    public List<Path> findJavaFiles(Path repoPath) throws IOException {
-        logger.info("Finding Java files in repository: {}", repoPath);
-        
-        try (Stream<Path> walk = Files.walk(repoPath)) {
-            return walk
-                .filter(Files::isRegularFile)
-                .filter(p -> p.toString().endsWith(".java"))
-                .collect(Collectors.toList());
-        }
+    public JavaParserService(LanguageLevel languageLevel, boolean signaturesOnly) {
+        this.signaturesOnly = signaturesOnly;
+        this.fullConfiguration = new ParserConfiguration()
+            .setLanguageLevel(languageLevel);
+        this.signatureConfiguration = new ParserConfiguration()
+            .setLanguageLevel(languageLevel)
+            .setAttributeComments(false)
+            .setLexicalPreservationEnabled(false);
     }
 
     /**
@@ -57,10 +81,20 @@ public class JavaParserService {
      * @return JavaClassDoc containing parsed class information or null if parsing fails
      */
     public JavaClassDoc parseJavaFile(Path javaFile) {
+        try (Tracing.Span span = Tracing.span("parse", "parser")) {
+            JavaClassDoc classDoc = parse(javaFile);
+            span.arg("file", javaFile)
+                .arg("mode", signaturesOnly ? "signatures" : "full")
+                .arg("class", classDoc != null ? classDoc.getFullyQualifiedName() : null);
+            return classDoc;
+        }
+    }
+
+    private JavaClassDoc parse(Path javaFile) {
         logger.info("Parsing Java file: {}", javaFile);
         
         try {
-            JavaParser parser = new JavaParser();
+            JavaParser parser = new JavaParser(signaturesOnly ? signatureConfiguration : fullConfiguration);
             ParseResult<CompilationUnit> result = parser.parse(javaFile);
             
             if (!result.isSuccessful()) {
@@ -80,6 +114,7 @@ public class JavaParserService {
             }
             
             ClassOrInterfaceDeclaration classDecl = (ClassOrInterfaceDeclaration) primaryType.get();
+            JavadocIndex javadocIndex = signaturesOnly ? new JavadocIndex(result, cu, classDecl) : null;
             
             // Build the JavaClassDoc
             JavaClassDoc.JavaClassDocBuilder builder = JavaClassDoc.builder()
@@ -94,10 +129,12 @@ public class JavaParserService {
                 .type(classDecl.isInterface() ? "INTERFACE" : "CLASS")
                 .isPublic(classDecl.isPublic())
                 .isAbstract(classDecl.isAbstract())
-                .sourceCode(classDecl.toString());
+                .sourceCode(signaturesOnly ? null : classDecl.toString())
+                .sourceFidelity(signaturesOnly ? null : PromptFidelity.FULL)
+                .sourcePath(javaFile);
             
             // Extract class description from Javadoc
-            classDecl.getJavadoc().ifPresent(javadoc -> 
+            javadocOf(classDecl, javadocIndex).ifPresent(javadoc -> 
                 builder.description(javadoc.getDescription().toText())
             );
             
@@ -134,7 +171,7 @@ public class JavaParserService {
                         .isFinal(field.isFinal());
                     
                     // Extract field javadoc
-                    field.getJavadoc().ifPresent(javadoc ->
+                    javadocOf(field, javadocIndex).ifPresent(javadoc ->
                         fieldBuilder.description(javadoc.getDescription().toText())
                     );
                     
@@ -164,10 +201,12 @@ public class JavaParserService {
                     .isPublic(method.isPublic())
                     .isStatic(method.isStatic())
                     .isAbstract(method.isAbstract())
-                    .sourceCode(method.toString());
+                    .sourceCode(signaturesOnly ? null : method.toString());
                   // Extract method Javadoc
-                if (method.getJavadoc().isPresent()) {
-                    com.github.javaparser.javadoc.Javadoc javadoc = method.getJavadoc().get();
+                Optional<Javadoc> methodJavadoc = javadocOf(method, javadocIndex);
+                Map<String, String> documentedExceptions = new LinkedHashMap<>();
+                if (methodJavadoc.isPresent()) {
+                    Javadoc javadoc = methodJavadoc.get();
                     methodBuilder.description(javadoc.getDescription().toText());
                     
                     // Extract return description
@@ -184,19 +223,32 @@ public class JavaParserService {
                                       tag.getType() == JavadocBlockTag.Type.EXCEPTION)
                         .collect(Collectors.toList());
                     
-                    if (!exceptionTags.isEmpty()) {
-                        List<String> exceptions = new ArrayList<>();
-                        Map<String, String> exceptionDescriptions = new HashMap<>();
-                        
-                        for (JavadocBlockTag tag : exceptionTags) {
-                            String exceptionName = tag.getName().isPresent() ? tag.getName().get() : "";
-                            exceptions.add(exceptionName);
-                            exceptionDescriptions.put(exceptionName, tag.getContent().toText());
-                        }
-                        
-                        methodBuilder.exceptions(exceptions);
-                        methodBuilder.exceptionDescriptions(exceptionDescriptions);
+                    for (JavadocBlockTag tag : exceptionTags) {
+                        String exceptionName = tag.getName().isPresent() ? tag.getName().get() : "";
+                        documentedExceptions.put(exceptionName, tag.getContent().toText());
+                    }
+                }
+                
+                // Declared exceptions come from the throws clause, documented ones from the Javadoc
+                List<String> exceptions = new ArrayList<>();
+                Map<String, String> exceptionDescriptions = new HashMap<>();
+                for (ReferenceType thrown : method.getThrownExceptions()) {
+                    String exceptionName = thrown.asString();
+                    exceptions.add(exceptionName);
+                    documentedExceptions.entrySet().stream()
+                        .filter(documented -> simpleName(documented.getKey()).equals(simpleName(exceptionName)))
+                        .findFirst()
+                        .ifPresent(documented -> exceptionDescriptions.put(exceptionName, documented.getValue()));
+                }
+                documentedExceptions.forEach((exceptionName, description) -> {
+                    if (exceptions.stream().noneMatch(declared -> simpleName(declared).equals(simpleName(exceptionName)))) {
+                        exceptions.add(exceptionName);
+                        exceptionDescriptions.put(exceptionName, description);
                     }
+                });
+                if (!exceptions.isEmpty()) {
+                    methodBuilder.exceptions(exceptions);
+                    methodBuilder.exceptionDescriptions(exceptionDescriptions);
                 }
                 
                 // Extract parameters
@@ -207,8 +259,8 @@ public class JavaParserService {
                         .type(param.getTypeAsString())
                         .isRequired(!param.isVarArgs());
                       // If javadoc present, try to find parameter description
-                    if (method.getJavadoc().isPresent()) {
-                        List<JavadocBlockTag> paramTags = method.getJavadoc().get().getBlockTags().stream()
+                    if (methodJavadoc.isPresent()) {
+                        List<JavadocBlockTag> paramTags = methodJavadoc.get().getBlockTags().stream()
                             .filter(tag -> tag.getType() == JavadocBlockTag.Type.PARAM &&
                                           tag.getName().isPresent() &&
                                           tag.getName().get().equals(param.getNameAsString()))
@@ -247,6 +299,11 @@ public class JavaParserService {
                 builder.annotations(annotations);
             }
             
+            // Compute the structural fingerprint used to deduplicate template-generated classes
+            List<String> declaredNames = new ArrayList<>();
+            builder.structuralFingerprint(computeStructuralFingerprint(classDecl, declaredNames));
+            builder.declaredNames(declaredNames);
+            
             return builder.build();
         } catch (Exception e) {
             logger.error("Error parsing Java file {}: {}", javaFile, e.getMessage(), e);
@@ -254,6 +311,358 @@ public class JavaParserService {
         }
     }
     
+    /**
+     * Fills in the class and method source of a class parsed in signature mode, by parsing
+     * its file again in full. Does nothing if the source is already present.
+     *
+     * @param classDoc Class to materialize
+     * @return true if the class source is available afterwards
+     */
+    public boolean materializeSource(JavaClassDoc classDoc) {
+        return materializeSource(classDoc, PromptFidelity.FULL);
+    }
+    
+    /**
+     * Fills in the class source at the given level of detail, and the full source of each method,
+     * by parsing the class file again. Does nothing if the source is already present at that level.
+     *
+     * @param classDoc Class to materialize
+     * @param fidelity Level of detail of the class source
+     * @return true if the class source is available afterwards
+     */
+    public boolean materializeSource(JavaClassDoc classDoc, PromptFidelity fidelity) {
+        if (classDoc.getSourceCode() != null && classDoc.getSourceFidelity() == fidelity) {
+            return true;
+        }
+        return materialize(classDoc, classDecl -> fidelity);
+    }
+    
+    /**
+     * Fills in the class source at a level chosen from its full source, and the full source of
+     * each method, parsing the class file at most once.
+     *
+     * @param classDoc Class to materialize
+     * @param levelForFullSource Chooses the level of detail from the full class source
+     * @return true if the class source is available afterwards
+     */
+    public boolean materializeSource(JavaClassDoc classDoc, Function<String, PromptFidelity> levelForFullSource) {
+        if (classDoc.getSourceCode() != null && classDoc.getSourceFidelity() == PromptFidelity.FULL) {
+            PromptFidelity level = levelForFullSource.apply(classDoc.getSourceCode());
+            return level == PromptFidelity.FULL || materializeSource(classDoc, level);
+        }
+        return materialize(classDoc, classDecl -> levelForFullSource.apply(renderSource(classDecl, PromptFidelity.FULL)));
+    }
+    
+    private boolean materialize(JavaClassDoc classDoc, Function<TypeDeclaration<?>, PromptFidelity> levelOf) {
+        if (classDoc.getSourcePath() == null) {
+            return classDoc.getSourceCode() != null;
+        }
+        
+        try (Tracing.Span span = Tracing.span("materialize", "parser")) {
+            ParseResult<CompilationUnit> result = new JavaParser(fullConfiguration).parse(classDoc.getSourcePath());
+            Optional<TypeDeclaration<?>> primaryType = result.getResult().flatMap(CompilationUnit::getPrimaryType);
+            if (!result.isSuccessful() || primaryType.isEmpty()) {
+                logger.warn("Failed to materialize source of {}: {}", classDoc.getFullyQualifiedName(), result.getProblems());
+                return false;
+            }
+            
+            TypeDeclaration<?> classDecl = primaryType.get();
+            PromptFidelity fidelity = levelOf.apply(classDecl);
+            span.arg("class", classDoc.getFullyQualifiedName()).arg("fidelity", fidelity.name());
+            classDoc.setSourceCode(renderSource(classDecl, fidelity));
+            classDoc.setSourceFidelity(fidelity);
+            Map<String, String> methodSources = new HashMap<>();
+            for (MethodDeclaration method : classDecl.getMethods()) {
+                methodSources.putIfAbsent(method.getDeclarationAsString(), method.toString());
+            }
+            for (MethodDoc method : classDoc.getMethods()) {
+                method.setSourceCode(methodSources.get(method.getSignature()));
+            }
+            return true;
+        } catch (IOException e) {
+            logger.error("Error materializing source of {}: {}", classDoc.getFullyQualifiedName(), e.getMessage(), e);
+            return false;
+        }
+    }
+    
+    /**
+     * Renders a type declaration at the given level of detail by transforming a copy of its AST.
+     *
+     * @param classDecl Parsed type declaration
+     * @param fidelity Level of detail
+     * @return Source text of the transformed declaration
+     */
+    private String renderSource(TypeDeclaration<?> classDecl, PromptFidelity fidelity) {
+        if (fidelity == PromptFidelity.FULL) {
+            return classDecl.toString();
+        }
+        TypeDeclaration<?> compacted = classDecl.clone();
+        // Only Javadoc describes the API; other comments mostly explain implementation details
+        compacted.getAllContainedComments().stream()
+            .filter(comment -> !(comment instanceof JavadocComment))
+            .forEach(Comment::remove);
+        compactMembers(compacted, fidelity);
+        return compacted.toString();
+    }
+    
+    private void compactMembers(TypeDeclaration<?> type, PromptFidelity fidelity) {
+        boolean isInterface = type instanceof ClassOrInterfaceDeclaration && ((ClassOrInterfaceDeclaration) type).isInterface();
+        for (BodyDeclaration<?> member : new ArrayList<>(type.getMembers())) {
+            if (member instanceof InitializerDeclaration || !isApiMember(member, fidelity, isInterface)) {
+                member.remove();
+            } else if (member instanceof MethodDeclaration) {
+                MethodDeclaration method = (MethodDeclaration) member;
+                if (method.getBody().isPresent()) {
+                    if (fidelity == PromptFidelity.SIGNATURES) {
+                        method.removeBody();
+                    } else {
+                        method.setBody(elidedBody());
+                    }
+                }
+            } else if (member instanceof ConstructorDeclaration) {
+                ((ConstructorDeclaration) member).setBody(fidelity == PromptFidelity.SIGNATURES ? new BlockStmt() : elidedBody());
+            } else if (member instanceof FieldDeclaration && fidelity == PromptFidelity.SIGNATURES) {
+                // Keep the values of constants, which are part of the API; drop other initializers
+                FieldDeclaration field = (FieldDeclaration) member;
+                if (!(field.isStatic() && field.isFinal())) {
+                    field.getVariables().forEach(VariableDeclarator::removeInitializer);
+                }
+            } else if (member instanceof TypeDeclaration) {
+                compactMembers((TypeDeclaration<?>) member, fidelity);
+            }
+        }
+    }
+    
+    /**
+     * Checks whether a member belongs to the API documented at the given level: non-private members
+     * for the public surface, public and protected ones (or any interface member) for signatures.
+     */
+    private boolean isApiMember(BodyDeclaration<?> member, PromptFidelity fidelity, boolean inInterface) {
+        if (!(member instanceof NodeWithModifiers)) {
+            return true;
+        }
+        NodeWithModifiers<?> modifiers = (NodeWithModifiers<?>) member;
+        if (modifiers.hasModifier(Modifier.Keyword.PRIVATE)) {
+            return false;
+        }
+        return fidelity != PromptFidelity.SIGNATURES || inInterface
+            || modifiers.hasModifier(Modifier.Keyword.PUBLIC) || modifiers.hasModifier(Modifier.Keyword.PROTECTED);
+    }
+    
+    private BlockStmt elidedBody() {
+        BlockStmt body = new BlockStmt();
+        body.addOrphanComment(new LineComment(" ..."));
+        return body;
+    }
+    
+    /**
+     * Renders the class source at the given level of detail without changing the class.
+     *
+     * @param classDoc Parsed class
+     * @param fidelity Level of detail
+     * @return Source text, or null if the class file cannot be parsed
+     */
+    public String renderSource(JavaClassDoc classDoc, PromptFidelity fidelity) {
+        if (classDoc.getSourcePath() == null) {
+            return null;
+        }
+        try {
+            ParseResult<CompilationUnit> result = new JavaParser(fullConfiguration).parse(classDoc.getSourcePath());
+            return result.getResult()
+                .flatMap(CompilationUnit::getPrimaryType)
+                .map(classDecl -> renderSource(classDecl, fidelity))
+                .orElse(null);
+        } catch (IOException e) {
+            logger.error("Error rendering source of {}: {}", classDoc.getFullyQualifiedName(), e.getMessage(), e);
+            return null;
+        }
+    }
+    
+    /**
+     * Drops the source text of a class again in signature mode, so that only the classes
+     * currently being documented hold their full source in memory.
+     *
+     * @param classDoc Class whose source is no longer needed
+     */
+    public void releaseSource(JavaClassDoc classDoc) {
+        if (!signaturesOnly) {
+            return;
+        }
+        classDoc.setSourceCode(null);
+        classDoc.setSourceFidelity(null);
+        classDoc.getMethods().forEach(m -> m.setSourceCode(null));
+    }
+    
+    /**
+     * Finds the Javadoc of a declaration, from the attributed comment in full mode
+     * or from the position index in signature mode.
+     *
+     * @param node Declaration to look up
+     * @param javadocIndex Position index, or null in full mode
+     * @return Parsed Javadoc if present
+     */
+    private Optional<Javadoc> javadocOf(BodyDeclaration<?> node, JavadocIndex javadocIndex) {
+        if (javadocIndex == null) {
+            return node instanceof NodeWithJavadoc<?> withJavadoc ? withJavadoc.getJavadoc() : Optional.empty();
+        }
+        return javadocIndex.find(node);
+    }
+    
+    /**
+     * Computes a fingerprint of the signatures a class declares: its header, fields, constructors,
+     * methods and nested types. Comments, formatting and method bodies are ignored. Member names
+     * are kept, except where they contain camel-case words of the class name (getUserId in
+     * UserDto), which are normalized by their position in the class name. Two classes with the
+     * same fingerprint therefore differ only by their entity name.
+     *
+     * @param classDecl Class declaration to fingerprint
+     * @param declaredNames Receives the declared names in declaration order
+     * @return SHA-256 fingerprint of the normalized signatures
+     */
+    private String computeStructuralFingerprint(ClassOrInterfaceDeclaration classDecl, List<String> declaredNames) {
+        Map<Pattern, String> stems = classNameStems(classDecl.getNameAsString());
+        Set<String> names = new LinkedHashSet<>();
+        StringBuilder signatures = new StringBuilder();
+        appendTypeSignature(signatures, classDecl, stems, names);
+        declaredNames.addAll(names);
+        return HashUtils.sha256(signatures.toString());
+    }
+    
+    /**
+     * Builds the patterns replacing runs of camel-case words of a class name, longest first, with
+     * placeholders numbered by word position. Runs shorter than three characters are kept, since
+     * they are too likely to occur inside unrelated names.
+     */
+    private Map<Pattern, String> classNameStems(String className) {
+        String[] words = className.split("(?<=[\\p{Ll}\\p{N}])(?=\\p{Lu})");
+        Map<String, String> placeholders = new HashMap<>();
+        for (int from = 0; from < words.length; from++) {
+            StringBuilder run = new StringBuilder();
+            for (int to = from; to < words.length; to++) {
+                run.append(words[to]);
+                if (run.length() >= 3) {
+                    placeholders.putIfAbsent(run.toString(), "\\$" + from + "_" + to);
+                }
+            }
+        }
+        Map<Pattern, String> stems = new LinkedHashMap<>();
+        placeholders.entrySet().stream()
+            .sorted(Comparator.comparingInt((Map.Entry<String, String> e) -> e.getKey().length()).reversed())
+            .forEach(e -> {
+                String stem = e.getKey();
+                String lowerStem = Character.toLowerCase(stem.charAt(0)) + stem.substring(1);
+                // A capitalized stem may follow a lower-case letter (getUserId); a lower-case one must start a word
+                stems.put(Pattern.compile(Pattern.quote(stem) + "(?!\\p{Ll})"), e.getValue());
+                stems.put(Pattern.compile("(?<![\\p{L}\\p{N}$])" + Pattern.quote(lowerStem) + "(?!\\p{Ll})"), e.getValue());
+            });
+        return stems;
+    }
+    
+    private String normalize(String text, Map<Pattern, String> stems) {
+        String result = text;
+        for (Map.Entry<Pattern, String> stem : stems.entrySet()) {
+            result = stem.getKey().matcher(result).replaceAll(stem.getValue());
+        }
+        return result;
+    }
+    
+    private String declare(String name, Map<Pattern, String> stems, Set<String> names) {
+        names.add(name);
+        return normalize(name, stems);
+    }
+    
+    private void appendTypeSignature(StringBuilder out, TypeDeclaration<?> type, Map<Pattern, String> stems, Set<String> names) {
+        out.append(type.getClass().getSimpleName()).append(' ');
+        appendModifiers(out, type.getModifiers(), type.getAnnotations(), stems);
+        out.append(declare(type.getNameAsString(), stems, names));
+        if (type instanceof ClassOrInterfaceDeclaration classDecl) {
+            out.append(classDecl.isInterface() ? " interface" : " class");
+            classDecl.getTypeParameters().forEach(t -> out.append(" <").append(normalize(t.asString(), stems)).append('>'));
+            classDecl.getExtendedTypes().forEach(t -> out.append(" extends ").append(normalize(t.asString(), stems)));
+            classDecl.getImplementedTypes().forEach(t -> out.append(" implements ").append(normalize(t.asString(), stems)));
+        } else if (type instanceof EnumDeclaration enumDecl) {
+            enumDecl.getEntries().forEach(entry -> out.append(' ').append(declare(entry.getNameAsString(), stems, names)));
+        }
+        out.append(" {\n");
+        for (BodyDeclaration<?> member : type.getMembers()) {
+            if (member instanceof FieldDeclaration field) {
+                appendModifiers(out, field.getModifiers(), field.getAnnotations(), stems);
+                for (VariableDeclarator variable : field.getVariables()) {
+                    out.append(normalize(variable.getType().asString(), stems)).append(' ')
+                        .append(declare(variable.getNameAsString(), stems, names));
+                    // Constant values are shown on the page, so they are part of the shape
+                    variable.getInitializer().ifPresent(value -> out.append(" = ").append(normalize(value.toString(), stems)));
+                    out.append(";\n");
+                }
+            } else if (member instanceof CallableDeclaration<?> callable) {
+                appendModifiers(out, callable.getModifiers(), callable.getAnnotations(), stems);
+                callable.getTypeParameters().forEach(t -> out.append('<').append(normalize(t.asString(), stems)).append("> "));
+                if (callable instanceof MethodDeclaration method) {
+                    out.append(normalize(method.getType().asString(), stems)).append(' ');
+                }
+                out.append(declare(callable.getNameAsString(), stems, names)).append('(');
+                for (Parameter parameter : callable.getParameters()) {
+                    out.append(normalize(parameter.getType().asString(), stems)).append(parameter.isVarArgs() ? "... " : " ")
+                        .append(declare(parameter.getNameAsString(), stems, names)).append(',');
+                }
+                out.append(')');
+                callable.getThrownExceptions().forEach(t -> out.append(" throws ").append(normalize(t.asString(), stems)));
+                // Bodies are not part of the shape: only whether there is one
+                boolean abstractMethod = callable instanceof MethodDeclaration method && method.getBody().isEmpty();
+                out.append(abstractMethod ? ";\n" : " {}\n");
+            } else if (member instanceof TypeDeclaration<?> nested) {
+                appendTypeSignature(out, nested, stems, names);
+            } else {
+                out.append(member.getClass().getSimpleName()).append('\n');
+            }
+        }
+        out.append("}\n");
+    }
+    
+    private void appendModifiers(StringBuilder out, NodeList<Modifier> modifiers, NodeList<AnnotationExpr> annotations,
+                                 Map<Pattern, String> stems) {
+        annotations.forEach(a -> out.append(normalize(a.toString(), stems)).append(' '));
+        modifiers.forEach(m -> out.append(m.getKeyword().asString()).append(' '));
+    }
+    
+    /**
+     * Matches Javadoc comments to declarations by position, replacing comment attribution
+     * in signature mode. A Javadoc comment belongs to the first declaration that follows it,
+     * provided no other code lies in between.
+     */
+    private static class JavadocIndex {
+        private final TreeMap<Position, JavadocComment> javadocsByEnd = new TreeMap<>();
+        private final TreeSet<Position> codeEnds = new TreeSet<>();
+        
+        JavadocIndex(ParseResult<CompilationUnit> result, CompilationUnit cu, ClassOrInterfaceDeclaration classDecl) {
+            result.getCommentsCollection().ifPresent(comments -> {
+                for (JavadocComment javadoc : comments.getJavadocComments()) {
+                    javadoc.getEnd().ifPresent(end -> javadocsByEnd.put(end, javadoc));
+                }
+            });
+            cu.getPackageDeclaration().flatMap(Node::getEnd).ifPresent(codeEnds::add);
+            cu.getImports().forEach(i -> i.getEnd().ifPresent(codeEnds::add));
+            classDecl.getName().getEnd().ifPresent(codeEnds::add);
+            classDecl.getMembers().forEach(m -> m.getEnd().ifPresent(codeEnds::add));
+        }
+        
+        Optional<Javadoc> find(Node node) {
+            Optional<Position> begin = node.getBegin();
+            if (begin.isEmpty()) {
+                return Optional.empty();
+            }
+            Map.Entry<Position, JavadocComment> candidate = javadocsByEnd.lowerEntry(begin.get());
+            if (candidate == null) {
+                return Optional.empty();
+            }
+            Position lastCode = codeEnds.lower(begin.get());
+            if (lastCode != null && lastCode.isAfter(candidate.getKey())) {
+                return Optional.empty();
+            }
+            return Optional.of(candidate.getValue().parse());
+        }
+    }
+    
     /**
      * Extract annotation names and their values.
      *
@@ -283,4 +692,11 @@ public class JavaParserService {
         
         return result;
     }
+    
+    /**
+     * Strips the package from a type name, so that names from throws clauses and Javadoc tags match.
+     */
+    private String simpleName(String typeName) {
+        return typeName.substring(typeName.lastIndexOf('.') + 1);
+    }
 }
@@ -0,0 +1,319 @@
+package com.documentor.agent.service;
+
+import com.documentor.agent.model.DocValidationResult;
+import com.documentor.agent.model.JavaClassDoc;
+import com.documentor.agent.model.MethodDoc;
+import com.documentor.agent.util.Tracing;
+import dev.langchain4j.model.chat.ChatLanguageModel;
+import org.commonmark.node.AbstractVisitor;
+import org.commonmark.node.Heading;
+import org.commonmark.node.Node;
+import org.commonmark.parser.IncludeSourceSpans;
+import org.commonmark.parser.Parser;
+import org.commonmark.renderer.text.TextContentRenderer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Service that checks generated class documentation with commonmark and repairs it in place.
+ * <p>
+ * A page must have an Overview section, a methods section, one section per public method and
+ * balanced code fences. Instead of regenerating a broken page, only the missing sections are
+ * requested from the LLM and spliced into the existing content.
+ */
+public class MarkdownValidationService {
+    private static final Logger logger = LoggerFactory.getLogger(MarkdownValidationService.class);
+    private static final Pattern FENCE = Pattern.compile("^ {0,3}(`{3,}|~{3,})");
+    private static final Pattern HEADING = Pattern.compile("^ {0,3}#{1,6}\\s+(.*)");
+    private static final String OVERVIEW_SECTION = "Overview";
+    private static final String METHODS_SECTION = "Methods";
+
+    private final ChatLanguageModel chatModel;
+    private final DocumentationPromptService promptService;
+    private final Parser parser = Parser.builder().includeSourceSpans(IncludeSourceSpans.BLOCKS).build();
+    private final TextContentRenderer textRenderer = TextContentRenderer.builder().build();
+
+    public MarkdownValidationService(ChatLanguageModel chatModel, DocumentationPromptService promptService) {
+        this.chatModel = chatModel;
+        this.promptService = promptService;
+    }
+
+    /**
+     * Checks a class documentation page for required sections and balanced code fences.
+     *
+     * @param markdown Generated page content
+     * @param classDoc Class the page documents
+     * @return Validation result
+     */
+    public DocValidationResult validateClassDocumentation(String markdown, JavaClassDoc classDoc) {
+        List<String> headings = headingsOf(markdown).stream()
+            .map(h -> h.text)
+            .collect(Collectors.toList());
+
+        List<String> missingSections = new ArrayList<>();
+        if (headings.stream().noneMatch(h -> h.toLowerCase(Locale.ROOT).contains("overview"))) {
+            missingSections.add(OVERVIEW_SECTION);
+        }
+        List<String> publicMethods = publicMethodNames(classDoc);
+        if (!publicMethods.isEmpty() && headings.stream().noneMatch(h -> h.toLowerCase(Locale.ROOT).contains("method"))) {
+            missingSections.add(METHODS_SECTION);
+        }
+
+        List<String> missingMethods = publicMethods.stream()
+            .filter(name -> {
+                Pattern word = Pattern.compile("\\b" + Pattern.quote(name) + "\\b");
+                return headings.stream().noneMatch(h -> word.matcher(h).find());
+            })
+            .collect(Collectors.toList());
+
+        return DocValidationResult.builder()
+            .missingSections(missingSections)
+            .missingMethods(missingMethods)
+            .unbalancedCodeFence(openFenceLine(markdown) >= 0)
+            .build();
+    }
+
+    /**
+     * Checks whether a page lacks content that only the LLM can supply. A missing methods heading
+     * above otherwise complete method sections is not counted, as the repair adds it locally.
+     *
+     * @param markdown Generated page content
+     * @param classDoc Class the page documents
+     * @return True if sections are missing or a code fence is unbalanced
+     */
+    public boolean isMissingContent(String markdown, JavaClassDoc classDoc) {
+        DocValidationResult result = validateClassDocumentation(markdown, classDoc);
+        return result.getMissingSections().contains(OVERVIEW_SECTION)
+            || !result.getMissingMethods().isEmpty()
+            || result.isUnbalancedCodeFence();
+    }
+
+    /**
+     * Validates a class documentation page and, if needed, requests only the missing or broken
+     * sections from the LLM and splices them into the page.
+     *
+     * @param markdown Generated page content
+     * @param classDoc Class the page documents
+     * @return The page, repaired where possible
+     */
+    public String validateAndRepair(String markdown, JavaClassDoc classDoc) {
+        DocValidationResult result = validateClassDocumentation(markdown, classDoc);
+        if (result.isValid()) {
+            return markdown;
+        }
+        logger.info("Repairing documentation of {}: missing sections {}, missing methods {}, unbalanced fence {}",
+            classDoc.getFullyQualifiedName(), result.getMissingSections(), result.getMissingMethods(),
+            result.isUnbalancedCodeFence());
+
+        String content = markdown;
+        if (result.isUnbalancedCodeFence()) {
+            // A truncated response ends inside a code block: drop the broken section so it is requested again
+            content = dropSectionAt(content, openFenceLine(content));
+            result = validateClassDocumentation(content, classDoc);
+        }
+        if (result.isValid()) {
+            return content;
+        }
+
+        List<String> requestedSections = new ArrayList<>();
+        if (result.getMissingSections().contains(OVERVIEW_SECTION)) {
+            requestedSections.add(OVERVIEW_SECTION);
+        }
+        requestedSections.addAll(result.getMissingMethods());
+
+        if (!requestedSections.isEmpty()) {
+            String repairPrompt = promptService.renderSectionRepairPrompt(classDoc, requestedSections);
+            String sections;
+            try (Tracing.Span span = Tracing.span("repair:" + classDoc.getFullyQualifiedName(), "llm")) {
+                span.arg("promptChars", repairPrompt.length()).arg("sections", requestedSections.size());
+                sections = TokenUsageService.attributed("repair", classDoc.getFullyQualifiedName(),
+                    () -> chatModel.generate(repairPrompt));
+            }
+            content = splice(content, sections, result.getMissingSections().contains(METHODS_SECTION));
+        }
+        if (validateClassDocumentation(content, classDoc).getMissingSections().contains(METHODS_SECTION)) {
+            // Every method has its section, only the heading above them is missing
+            content = insertMethodsHeading(content, classDoc);
+        }
+
+        DocValidationResult repaired = validateClassDocumentation(content, classDoc);
+        if (!repaired.isValid()) {
+            logger.warn("Documentation of {} is still incomplete after repair: missing sections {}, missing methods {}",
+                classDoc.getFullyQualifiedName(), repaired.getMissingSections(), repaired.getMissingMethods());
+        }
+        return content;
+    }
+
+    /**
+     * Inserts repaired sections into a page: the overview after the title, everything else
+     * after the last method section.
+     */
+    private String splice(String content, String sections, boolean addMethodsHeading) {
+        List<String> lines = new ArrayList<>(Arrays.asList(content.split("\n", -1)));
+
+        // Split the response into the overview block and the method blocks
+        List<String> overview = new ArrayList<>();
+        List<String> methods = new ArrayList<>();
+        List<String> current = methods;
+        for (String line : sections.strip().split("\n", -1)) {
+            Matcher heading = HEADING.matcher(line);
+            if (heading.find()) {
+                current = heading.group(1).toLowerCase(Locale.ROOT).contains("overview") ? overview : methods;
+            }
+            current.add(line);
+        }
+        stripTrailingBlankLines(overview);
+        stripTrailingBlankLines(methods);
+
+        List<HeadingLine> headings = headingsOf(content);
+        if (!methods.isEmpty()) {
+            if (addMethodsHeading) {
+                methods.add(0, "## " + METHODS_SECTION);
+                methods.add(1, "");
+            }
+            int insertAt = lines.size();
+            HeadingLine lastMethodHeading = null;
+            for (HeadingLine heading : headings) {
+                if (heading.level >= 3) {
+                    lastMethodHeading = heading;
+                }
+            }
+            if (lastMethodHeading != null) {
+                insertAt = sectionEnd(headings, lastMethodHeading, lines.size());
+            }
+            if (insertAt == lines.size()) {
+                stripTrailingBlankLines(lines);
+                insertAt = lines.size();
+            }
+            List<String> block = new ArrayList<>(methods);
+            block.add(0, "");
+            lines.addAll(insertAt, block);
+        }
+        if (!overview.isEmpty()) {
+            int insertAt = headings.isEmpty() || headings.get(0).level != 1 ? 0 : headings.get(0).line + 1;
+            List<String> block = new ArrayList<>(overview);
+            block.add(0, "");
+            lines.addAll(insertAt, block);
+        }
+        String result = String.join("\n", lines);
+        return result.endsWith("\n") ? result : result + "\n";
+    }
+
+    /**
+     * Adds a methods heading above the first section of a public method, or at the end of the page.
+     */
+    private String insertMethodsHeading(String content, JavaClassDoc classDoc) {
+        List<String> lines = new ArrayList<>(Arrays.asList(content.split("\n", -1)));
+        List<Pattern> methodNames = publicMethodNames(classDoc).stream()
+            .map(name -> Pattern.compile("\\b" + Pattern.quote(name) + "\\b"))
+            .collect(Collectors.toList());
+        int insertAt = -1;
+        for (HeadingLine heading : headingsOf(content)) {
+            if (heading.level >= 2 && heading.line >= 0
+                && methodNames.stream().anyMatch(name -> name.matcher(heading.text).find())) {
+                insertAt = heading.line;
+                break;
+            }
+        }
+        if (insertAt < 0) {
+            stripTrailingBlankLines(lines);
+            lines.add("");
+            insertAt = lines.size();
+        }
+        lines.addAll(insertAt, List.of("## " + METHODS_SECTION, ""));
+        String result = String.join("\n", lines);
+        return result.endsWith("\n") ? result : result + "\n";
+    }
+
+    /**
+     * Removes the section containing the given line, up to the end of the page.
+     */
+    private String dropSectionAt(String content, int lineIndex) {
+        List<String> lines = Arrays.asList(content.split("\n", -1));
+        int sectionStart = lineIndex;
+        for (HeadingLine heading : headingsOf(String.join("\n", lines.subList(0, lineIndex)))) {
+            sectionStart = heading.line;
+        }
+        return String.join("\n", lines.subList(0, sectionStart)).stripTrailing() + "\n";
+    }
+
+    private void stripTrailingBlankLines(List<String> block) {
+        while (!block.isEmpty() && block.get(block.size() - 1).isBlank()) {
+            block.remove(block.size() - 1);
+        }
+    }
+
+    private int sectionEnd(List<HeadingLine> headings, HeadingLine start, int lineCount) {
+        for (HeadingLine heading : headings) {
+            if (heading.line > start.line && heading.level <= start.level) {
+                return heading.line;
+            }
+        }
+        return lineCount;
+    }
+
+    /**
+     * Finds the line of a code fence that is never closed.
+     *
+     * @return Zero-based line index of the open fence, or -1 if all fences are balanced
+     */
+    private int openFenceLine(String markdown) {
+        String[] lines = markdown.split("\n", -1);
+        String openFence = null;
+        int openLine = -1;
+        for (int i = 0; i < lines.length; i++) {
+            Matcher fence = FENCE.matcher(lines[i]);
+            if (!fence.find()) {
+                continue;
+            }
+            String marker = fence.group(1);
+            if (openFence == null) {
+                openFence = marker;
+                openLine = i;
+            } else if (marker.charAt(0) == openFence.charAt(0) && marker.length() >= openFence.length()
+                       && lines[i].strip().equals(marker)) {
+                // A closing fence uses the same character, is at least as long and has no info string
+                openFence = null;
+                openLine = -1;
+            }
+        }
+        return openLine;
+    }
+
+    private List<String> publicMethodNames(JavaClassDoc classDoc) {
+        boolean isInterface = "INTERFACE".equals(classDoc.getType());
+        Set<String> names = new LinkedHashSet<>();
+        for (MethodDoc method : classDoc.getMethods()) {
+            if (method.isPublic() || isInterface) {
+                names.add(method.getName());
+            }
+        }
+        return new ArrayList<>(names);
+    }
+
+    private List<HeadingLine> headingsOf(String markdown) {
+        Node document = parser.parse(markdown);
+        List<HeadingLine> headings = new ArrayList<>();
+        document.accept(new AbstractVisitor() {
+            @Override
+            public void visit(Heading heading) {
+                int line = heading.getSourceSpans().isEmpty() ? -1 : heading.getSourceSpans().get(0).getLineIndex();
+                headings.add(new HeadingLine(heading.getLevel(), line, textRenderer.render(heading).strip()));
+            }
+        });
+        return headings;
+    }
+
+    private record HeadingLine(int level, int line, String text) {
+    }
+}
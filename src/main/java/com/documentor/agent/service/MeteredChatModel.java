@@ -0,0 +1,69 @@
+package com.documentor.agent.service;
+
+import dev.langchain4j.agent.tool.ToolSpecification;
+import dev.langchain4j.data.message.AiMessage;
+import dev.langchain4j.data.message.ChatMessage;
+import dev.langchain4j.model.chat.ChatLanguageModel;
+import dev.langchain4j.model.output.Response;
+
+import java.util.List;
+import java.util.concurrent.Semaphore;
+import java.util.function.Supplier;
+
+/**
+ * Chat model that records the token usage of every call with a {@link TokenUsageService} and
+ * limits the number of calls in flight.
+ * <p>
+ * Callers that use {@link ChatLanguageModel#generate(String)} only see the text of a response;
+ * wrapping the model accounts for their calls too. Page tasks and the usage examples they fan
+ * out to run on separate threads, so the limit is what keeps all of them together within
+ * DOCUMENTOR_CONCURRENCY calls.
+ */
+public class MeteredChatModel implements ChatLanguageModel {
+    private final ChatLanguageModel delegate;
+    private final TokenUsageService tokenUsageService;
+    private final Semaphore callPermits;
+
+    /**
+     * @param delegate Model performing the calls
+     * @param tokenUsageService Service recording the usage of each call
+     * @param maxConcurrentCalls Maximum number of calls in flight across all threads
+     */
+    public MeteredChatModel(ChatLanguageModel delegate, TokenUsageService tokenUsageService, int maxConcurrentCalls) {
+        this.delegate = delegate;
+        this.tokenUsageService = tokenUsageService;
+        this.callPermits = new Semaphore(Math.max(1, maxConcurrentCalls), true);
+    }
+
+    @Override
+    public Response<AiMessage> generate(List<ChatMessage> messages) {
+        return call(() -> delegate.generate(messages));
+    }
+
+    @Override
+    public Response<AiMessage> generate(List<ChatMessage> messages, List<ToolSpecification> toolSpecifications) {
+        return call(() -> delegate.generate(messages, toolSpecifications));
+    }
+
+    @Override
+    public Response<AiMessage> generate(List<ChatMessage> messages, ToolSpecification toolSpecification) {
+        return call(() -> delegate.generate(messages, toolSpecification));
+    }
+
+    private Response<AiMessage> call(Supplier<Response<AiMessage>> request) {
+        try {
+            callPermits.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting to call the LLM", e);
+        }
+        Response<AiMessage> response;
+        try {
+            response = request.get();
+        } finally {
+            callPermits.release();
+        }
+        tokenUsageService.record(response.tokenUsage());
+        return response;
+    }
+}
@@ -0,0 +1,152 @@
+package com.documentor.agent.service;
+
+import com.documentor.agent.model.JavaClassDoc;
+import com.documentor.agent.model.MethodDoc;
+import com.documentor.agent.util.HashUtils;
+import com.documentor.agent.util.Tracing;
+import dev.langchain4j.model.chat.ChatLanguageModel;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Service that generates a usage example for each public method with a small, focused prompt.
+ * <p>
+ * Examples are generated in parallel and cached on disk by a hash of the declaring class,
+ * the method signature and the method body, so an unchanged method never costs another call.
+ */
+public class MethodExampleService implements Closeable {
+    private static final Logger logger = LoggerFactory.getLogger(MethodExampleService.class);
+    private static final Pattern CODE_BLOCK = Pattern.compile("```(?:java)?\\s*\\n(.*?)```", Pattern.DOTALL);
+
+    private final ChatLanguageModel chatModel;
+    private final DocumentationPromptService promptService;
+    private final Path cacheDirectory;
+    private final ExecutorService executor;
+
+    /**
+     * @param chatModel Model used to generate examples
+     * @param promptService Service rendering the example prompts
+     * @param cacheDirectory Directory holding cached examples
+     * @param concurrency Maximum number of examples generated at the same time
+     */
+    public MethodExampleService(ChatLanguageModel chatModel, DocumentationPromptService promptService,
+                                Path cacheDirectory, int concurrency) {
+        this.chatModel = chatModel;
+        this.promptService = promptService;
+        this.cacheDirectory = cacheDirectory;
+        this.executor = Executors.newFixedThreadPool(Math.max(1, concurrency));
+    }
+
+    /**
+     * Fills {@link MethodDoc#getCodeExample()} for every public method of a class.
+     *
+     * @param classDoc Class whose methods need examples
+     * @throws IOException If the cache directory cannot be created
+     */
+    public void populateExamples(JavaClassDoc classDoc) throws IOException {
+        List<MethodDoc> methods = publicMethods(classDoc);
+        if (methods.isEmpty()) {
+            return;
+        }
+        Files.createDirectories(cacheDirectory);
+
+        List<CompletableFuture<Void>> futures = new ArrayList<>();
+        for (MethodDoc method : methods) {
+            futures.add(CompletableFuture.runAsync(() -> method.setCodeExample(exampleFor(classDoc, method)), executor));
+        }
+        try {
+            CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0])).join();
+        } catch (CompletionException e) {
+            // Examples are an enrichment; a failed call must not fail the class page
+            logger.warn("Some usage examples for {} could not be generated: {}",
+                classDoc.getFullyQualifiedName(), e.getCause() != null ? e.getCause().getMessage() : e.getMessage());
+        }
+    }
+
+    /**
+     * Renders the examples of a class as a Markdown section to append to its documentation page.
+     *
+     * @param classDoc Class with populated examples
+     * @return Markdown section, or an empty string if there are no examples
+     */
+    public String renderExamplesSection(JavaClassDoc classDoc) {
+        List<MethodDoc> withExamples = publicMethods(classDoc).stream()
+            .filter(m -> m.getCodeExample() != null && !m.getCodeExample().isBlank())
+            .collect(Collectors.toList());
+        if (withExamples.isEmpty()) {
+            return "";
+        }
+
+        StringBuilder section = new StringBuilder("\n\n## Usage Examples\n");
+        for (MethodDoc method : withExamples) {
+            section.append("\n### ").append(method.getName()).append("\n\n")
+                .append("```java\n").append(method.getCodeExample().strip()).append("\n```\n");
+        }
+        return section.toString();
+    }
+
+    /**
+     * Stops the worker threads.
+     */
+    @Override
+    public void close() {
+        executor.shutdown();
+    }
+
+    private List<MethodDoc> publicMethods(JavaClassDoc classDoc) {
+        // Interface methods are implicitly public
+        boolean isInterface = "INTERFACE".equals(classDoc.getType());
+        return classDoc.getMethods().stream()
+            .filter(m -> m.isPublic() || isInterface)
+            .collect(Collectors.toList());
+    }
+
+    private String exampleFor(JavaClassDoc classDoc, MethodDoc method) {
+        String key = HashUtils.sha256(classDoc.getFullyQualifiedName() + "\n" + method.getSignature() + "\n"
+            + (method.getSourceCode() != null ? method.getSourceCode() : ""));
+        Path cached = cacheDirectory.resolve(key + ".java");
+        try {
+            if (Files.exists(cached)) {
+                return Files.readString(cached);
+            }
+
+            logger.info("Generating usage example for {}.{}", classDoc.getFullyQualifiedName(), method.getName());
+            String prompt = promptService.renderMethodExamplePrompt(classDoc, method);
+            String response;
+            try (Tracing.Span span = Tracing.span("example:" + classDoc.getFullyQualifiedName() + "." + method.getName(), "llm")) {
+                span.arg("promptChars", prompt.length());
+                response = TokenUsageService.attributed("example", classDoc.getFullyQualifiedName(),
+                    () -> chatModel.generate(prompt));
+            }
+            String example = extractCode(response);
+
+            // Write through a temporary file so a concurrent reader never sees a partial example
+            Path temp = Files.createTempFile(cacheDirectory, key, ".tmp");
+            Files.writeString(temp, example);
+            Files.move(temp, cached, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            return example;
+        } catch (IOException e) {
+            throw new CompletionException(e);
+        }
+    }
+
+    private String extractCode(String response) {
+        Matcher matcher = CODE_BLOCK.matcher(response);
+        return matcher.find() ? matcher.group(1).strip() : response.strip();
+    }
+}
@@ -0,0 +1,111 @@
+package com.documentor.agent.service;
+
+import com.documentor.agent.model.JavaClassDoc;
+import com.documentor.agent.model.PromptFidelity;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Service that decides how much of a class's source goes into its documentation prompt.
+ * <p>
+ * Each class starts at the configured level, except small classes, which are sent in full since
+ * compacting them saves little. When a page generated from compacted source fails validation,
+ * the class is escalated to the next richer level. The source tokens sent are compared with
+ * those of the full source to report the reduction.
+ */
+public class PromptFidelityService {
+    private static final Logger logger = LoggerFactory.getLogger(PromptFidelityService.class);
+
+    private final JavaParserService javaParserService;
+    private final TokenEstimator tokenEstimator;
+    private final PromptFidelity defaultFidelity;
+    private final int fullFidelityBelowTokens;
+    private final Map<String, Integer> fullTokensByClass = new ConcurrentHashMap<>();
+    private final Map<String, Integer> sentTokensByClass = new ConcurrentHashMap<>();
+    private final AtomicInteger escalations = new AtomicInteger();
+
+    /**
+     * @param javaParserService Parser used to render class source at each level
+     * @param defaultFidelity Level classes start at
+     * @param fullFidelityBelowTokens Classes whose full source is smaller are always sent in full
+     */
+    public PromptFidelityService(JavaParserService javaParserService, PromptFidelity defaultFidelity,
+                                 int fullFidelityBelowTokens) {
+        this.javaParserService = javaParserService;
+        this.tokenEstimator = new TokenEstimator();
+        this.defaultFidelity = defaultFidelity;
+        this.fullFidelityBelowTokens = fullFidelityBelowTokens;
+    }
+
+    /**
+     * Materializes the source of a class at its initial level of detail.
+     *
+     * @param classDoc Class about to be documented
+     * @return true if the class source is available afterwards
+     */
+    public boolean prepare(JavaClassDoc classDoc) {
+        return prepare(classDoc, defaultFidelity);
+    }
+
+    /**
+     * Materializes the source of a class at a given level of detail, or in full if the class is small.
+     *
+     * @param classDoc Class about to be documented
+     * @param fidelity Level to use instead of the configured one, e.g. for reduced pages
+     * @return true if the class source is available afterwards
+     */
+    public boolean prepare(JavaClassDoc classDoc, PromptFidelity fidelity) {
+        // The level depends on the size of the full source, which comes from the same parse
+        boolean available = javaParserService.materializeSource(classDoc, fullSource -> {
+            int fullTokens = tokenEstimator.estimateTokens(fullSource);
+            fullTokensByClass.put(classDoc.getFullyQualifiedName(), fullTokens);
+            return fullTokens < fullFidelityBelowTokens ? PromptFidelity.FULL : fidelity;
+        });
+        if (!available) {
+            return false;
+        }
+        record(classDoc);
+        return true;
+    }
+
+    /**
+     * Moves a class to the next richer level of detail after its page failed validation.
+     *
+     * @param classDoc Class whose page failed validation
+     * @return true if the class source was escalated, false if it is already sent in full
+     */
+    public boolean escalate(JavaClassDoc classDoc) {
+        PromptFidelity current = classDoc.getSourceFidelity();
+        PromptFidelity richer = current != null ? current.richer() : null;
+        if (richer == null || !javaParserService.materializeSource(classDoc, richer)) {
+            return false;
+        }
+        escalations.incrementAndGet();
+        logger.info("Escalated prompt of {} from {} to {}", classDoc.getFullyQualifiedName(), current, richer);
+        record(classDoc);
+        return true;
+    }
+
+    /**
+     * Formats the input-token reduction of the run.
+     *
+     * @return Report line
+     */
+    public String formatReport() {
+        long fullTokens = fullTokensByClass.values().stream().mapToLong(Integer::longValue).sum();
+        long sentTokens = sentTokensByClass.values().stream().mapToLong(Integer::longValue).sum();
+        double reduction = fullTokens == 0 ? 0 : 100.0 * (fullTokens - sentTokens) / fullTokens;
+        return String.format(Locale.ROOT,
+            "Prompt fidelity %s: %,d class source tokens sent instead of %,d (%.1f%% fewer) for %d classes, %d escalated",
+            defaultFidelity, sentTokens, fullTokens, reduction, sentTokensByClass.size(), escalations.get());
+    }
+
+    private void record(JavaClassDoc classDoc) {
+        sentTokensByClass.put(classDoc.getFullyQualifiedName(), tokenEstimator.estimateTokens(classDoc.getSourceCode()));
+    }
+}
@@ -0,0 +1,251 @@
+package com.documentor.agent.service;
+
+import com.documentor.agent.util.HashUtils;
+import com.documentor.agent.util.Tracing;
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.api.errors.GitAPIException;
+import org.eclipse.jgit.lib.FileMode;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.transport.CredentialsProvider;
+import org.eclipse.jgit.treewalk.TreeWalk;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.stream.Stream;
+
+/**
+ * Keeps a persistent bare mirror per repository URL, so that repeated runs only fetch what
+ * changed since the last run and then export HEAD from the local mirror.
+ * <p>
+ * Each mirror is guarded by a file lock, so concurrent jobs on the same repository wait for
+ * each other instead of corrupting the mirror. Mirrors not used within the maximum age are
+ * evicted, and the least recently used ones are evicted while the cache exceeds its size limit.
+ */
+public class RepositoryMirrorService {
+    private static final Logger logger = LoggerFactory.getLogger(RepositoryMirrorService.class);
+
+    /**
+     * Name of the file recording which commit a working directory was exported from.
+     */
+    public static final String HEAD_MARKER = ".documentor-head";
+
+    private static final String[] MIRROR_REFSPECS = {"+refs/heads/*:refs/heads/*", "+refs/tags/*:refs/tags/*"};
+
+    private final Path mirrorsDirectory;
+    private final Duration maxAge;
+    private final long maxSizeBytes;
+
+    /**
+     * @param mirrorsDirectory Directory holding the mirrors
+     * @param maxAge Mirrors unused for longer are evicted
+     * @param maxSizeBytes Total size above which the least recently used mirrors are evicted
+     */
+    public RepositoryMirrorService(Path mirrorsDirectory, Duration maxAge, long maxSizeBytes) {
+        this.mirrorsDirectory = mirrorsDirectory;
+        this.maxAge = maxAge;
+        this.maxSizeBytes = maxSizeBytes;
+    }
+
+    /**
+     * Brings the mirror of a repository up to date and exports its HEAD into a directory.
+     *
+     * @param repoUrl Repository URL
+     * @param credentials Credentials for private repositories, or null
+     * @param targetDir Empty directory to export the files of HEAD into
+     * @throws GitAPIException If cloning or fetching fails
+     * @throws IOException If the mirror cannot be locked or the files cannot be written
+     */
+    public void checkout(String repoUrl, CredentialsProvider credentials, Path targetDir) throws GitAPIException, IOException {
+        Files.createDirectories(mirrorsDirectory);
+        Path mirror = mirrorPath(repoUrl);
+        try (FileChannel lockChannel = FileChannel.open(lockPath(mirror), StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+            // Held until the channel is closed
+            lockChannel.lock();
+            updateMirror(repoUrl, credentials, mirror);
+            exportHead(mirror, targetDir);
+            // The lock file's modification time records when the mirror was last used
+            Files.setLastModifiedTime(lockPath(mirror), FileTime.from(Instant.now()));
+        }
+        evict(mirror);
+    }
+
+    private void updateMirror(String repoUrl, CredentialsProvider credentials, Path mirror) throws GitAPIException, IOException {
+        if (Files.isDirectory(mirror.resolve("objects"))) {
+            try (Tracing.Span span = Tracing.span("fetch", "git");
+                 Git git = Git.open(mirror.toFile())) {
+                span.arg("url", repoUrl);
+                logger.info("Fetching changes of {} into mirror {}", repoUrl, mirror);
+                git.fetch()
+                    .setRemote(repoUrl)
+                    .setRefSpecs(MIRROR_REFSPECS)
+                    .setRemoveDeletedRefs(true)
+                    .setCredentialsProvider(credentials)
+                    .call();
+                return;
+            } catch (GitAPIException | IOException e) {
+                // A broken mirror (e.g. left by a killed clone) is replaced by a fresh one
+                logger.warn("Mirror {} could not be updated ({}); cloning it again", mirror, e.getMessage());
+                deleteRecursively(mirror);
+            }
+        }
+
+        try (Tracing.Span span = Tracing.span("mirror-clone", "git")) {
+            span.arg("url", repoUrl);
+            logger.info("Creating mirror of {} at {}", repoUrl, mirror);
+            try {
+                Git.cloneRepository()
+                    .setURI(repoUrl)
+                    .setDirectory(mirror.toFile())
+                    .setBare(true)
+                    .setCredentialsProvider(credentials)
+                    .call()
+                    .close();
+                logger.info("Mirror of {} created", repoUrl);
+            } catch (GitAPIException e) {
+                deleteRecursively(mirror);
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * Writes the files of the mirror's HEAD commit into a directory, without creating a repository there.
+     */
+    private void exportHead(Path mirror, Path targetDir) throws IOException {
+        try (Tracing.Span span = Tracing.span("export-head", "git");
+             Git git = Git.open(mirror.toFile())) {
+            Repository repository = git.getRepository();
+            ObjectId head = repository.resolve("HEAD^{commit}");
+            if (head == null) {
+                throw new IOException("Mirror " + mirror + " has no HEAD commit");
+            }
+            ObjectId tree = repository.resolve("HEAD^{tree}");
+            Path root = targetDir.toAbsolutePath().normalize();
+            int files = 0;
+            try (TreeWalk walk = new TreeWalk(repository)) {
+                walk.addTree(tree);
+                walk.setRecursive(true);
+                while (walk.next()) {
+                    FileMode mode = walk.getFileMode(0);
+                    // Symbolic links and submodules are not exported
+                    if (mode != FileMode.REGULAR_FILE && mode != FileMode.EXECUTABLE_FILE) {
+                        continue;
+                    }
+                    Path file = root.resolve(walk.getPathString()).normalize();
+                    if (!file.startsWith(root)) {
+                        logger.warn("Skipping entry outside the checkout: {}", walk.getPathString());
+                        continue;
+                    }
+                    Files.createDirectories(file.getParent());
+                    try (OutputStream out = Files.newOutputStream(file)) {
+                        repository.open(walk.getObjectId(0)).copyTo(out);
+                    }
+                    files++;
+                }
+            }
+            Files.writeString(root.resolve(HEAD_MARKER), head.name() + "\n");
+            span.arg("commit", head.name()).arg("files", files);
+            logger.info("Exported {} files of commit {} to {}", files, head.name(), targetDir);
+        }
+    }
+
+    /**
+     * Evicts mirrors unused for longer than the maximum age, then the least recently used
+     * mirrors while the cache is larger than its limit. Mirrors locked by another job are kept.
+     */
+    private void evict(Path currentMirror) {
+        List<Path> mirrors;
+        try (Stream<Path> entries = Files.list(mirrorsDirectory)) {
+            mirrors = entries.filter(p -> p.getFileName().toString().endsWith(".git") && Files.isDirectory(p))
+                .sorted(Comparator.comparing(this::lastUsed))
+                .collect(ArrayList::new, ArrayList::add, ArrayList::addAll);
+        } catch (IOException e) {
+            logger.warn("Could not list mirrors in {}: {}", mirrorsDirectory, e.getMessage());
+            return;
+        }
+
+        long totalSize = mirrors.stream().mapToLong(this::sizeOf).sum();
+        Instant oldestAllowed = Instant.now().minus(maxAge);
+        for (Path mirror : mirrors) {
+            if (mirror.equals(currentMirror)) {
+                continue;
+            }
+            boolean expired = lastUsed(mirror).toInstant().isBefore(oldestAllowed);
+            if (!expired && totalSize <= maxSizeBytes) {
+                continue;
+            }
+            long size = sizeOf(mirror);
+            if (evictIfUnlocked(mirror)) {
+                totalSize -= size;
+                logger.info("Evicted mirror {} ({} MB, {})", mirror, size / (1024 * 1024), expired ? "expired" : "over size limit");
+            }
+        }
+    }
+
+    private boolean evictIfUnlocked(Path mirror) {
+        // The lock file is kept: deleting it would let a job lock a new file while another still holds the old one
+        try (FileChannel lockChannel = FileChannel.open(lockPath(mirror), StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+            if (lockChannel.tryLock() == null) {
+                return false;
+            }
+            deleteRecursively(mirror);
+            return true;
+        } catch (IOException e) {
+            logger.warn("Could not evict mirror {}: {}", mirror, e.getMessage());
+            return false;
+        }
+    }
+
+    private Path mirrorPath(String repoUrl) {
+        // Normalize trivial URL differences so that both spellings share one mirror
+        String normalized = repoUrl.trim().replaceAll("/+$", "").replaceAll("\\.git$", "").replaceAll("/+$", "").toLowerCase(Locale.ROOT);
+        String name = normalized.substring(normalized.lastIndexOf('/') + 1).replaceAll("[^A-Za-z0-9._-]", "_");
+        return mirrorsDirectory.resolve(name + "-" + HashUtils.sha256(normalized).substring(0, 16) + ".git");
+    }
+
+    private Path lockPath(Path mirror) {
+        return mirror.resolveSibling(mirror.getFileName() + ".lock");
+    }
+
+    private FileTime lastUsed(Path mirror) {
+        try {
+            Path lock = lockPath(mirror);
+            return Files.getLastModifiedTime(Files.exists(lock) ? lock : mirror);
+        } catch (IOException e) {
+            return FileTime.fromMillis(0);
+        }
+    }
+
+    private long sizeOf(Path directory) {
+        try (Stream<Path> files = Files.walk(directory)) {
+            return files.filter(Files::isRegularFile).mapToLong(file -> file.toFile().length()).sum();
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    private void deleteRecursively(Path directory) {
+        if (!Files.exists(directory)) {
+            return;
+        }
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(file -> file.toFile().delete());
+        } catch (IOException e) {
+            logger.warn("Failed to delete {}: {}", directory, e.getMessage());
+        }
+    }
+}
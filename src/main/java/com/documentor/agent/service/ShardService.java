@@ -0,0 +1,197 @@
+package com.documentor.agent.service;
+
+import com.documentor.agent.model.ClassGroup;
+import com.documentor.agent.model.JavaClassDoc;
+import com.documentor.agent.model.Shard;
+import com.documentor.agent.util.HashUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Service that splits the class pages of a run across worker processes and combines their output.
+ * <p>
+ * Each class group belongs to the shard selected by a hash of its representative's fully qualified
+ * name, so every worker parsing the same checkout makes the same choice without coordination. A
+ * worker writes its class pages and a partial manifest listing them; the merge step checks that
+ * the manifests of all shards together cover every class before it writes the pages built from
+ * several classes. Manifests record a hash of the sources they were built from, so the merge step
+ * rejects the output of a shard that ran against a different checkout.
+ */
+public class ShardService {
+    private static final Logger logger = LoggerFactory.getLogger(ShardService.class);
+    private static final Pattern MANIFEST_NAME = Pattern.compile("shard-(\\d+)-of-(\\d+)\\.properties");
+    // Not a valid class name, so it cannot collide with a page entry
+    private static final String SOURCE_HASH_KEY = "@sourceHash";
+
+    /**
+     * Checks whether a class group is documented by a shard.
+     *
+     * @param shard Shard of the run
+     * @param group Class group
+     * @return true if the shard writes the pages of the group
+     */
+    public boolean selects(Shard shard, ClassGroup group) {
+        // Unlike String.hashCode, SHA-256 spreads similar names (Foo1, Foo2, ...) evenly
+        long hash = Long.parseLong(HashUtils.sha256(group.getRepresentative().getFullyQualifiedName()).substring(0, 15), 16);
+        return hash % shard.getCount() == shard.getIndex() - 1;
+    }
+
+    /**
+     * Gets the manifest file a shard writes.
+     *
+     * @param outputPath Directory the documentation is written to
+     * @param shard Shard of the run
+     * @return Path of the partial manifest
+     */
+    public Path manifestFile(Path outputPath, Shard shard) {
+        return outputPath.resolve("shards").resolve("shard-" + shard.getIndex() + "-of-" + shard.getCount() + ".properties");
+    }
+
+    /**
+     * Deletes the manifest a shard wrote in an earlier run, so that the merge step cannot accept
+     * it while the shard's pages are being written again.
+     *
+     * @param outputPath Directory the documentation is written to
+     * @param shard Shard of the run
+     * @throws IOException If the manifest cannot be deleted
+     */
+    public void discardManifest(Path outputPath, Shard shard) throws IOException {
+        Path manifestFile = manifestFile(outputPath, shard);
+        if (Files.deleteIfExists(manifestFile)) {
+            logger.info("Deleted manifest {} of an earlier run", manifestFile);
+        }
+    }
+
+    /**
+     * Adds the pages written for a class group to a manifest.
+     *
+     * @param manifest Page path relative to the output directory, by fully qualified class name
+     * @param group Documented class group
+     * @param outputPath Directory the documentation is written to
+     * @param moduleOutputPath Directory the pages of the group's module are written to
+     */
+    public void addPages(Map<String, String> manifest, ClassGroup group, Path outputPath, Path moduleOutputPath) {
+        Stream.concat(Stream.of(group.getRepresentative()), group.getMembers().stream()).forEach(classDoc -> {
+            Path page = moduleOutputPath.resolve("api").resolve(classDoc.getName() + ".md");
+            // Shards may run on different operating systems, so paths are stored with forward slashes
+            manifest.put(classDoc.getFullyQualifiedName(), outputPath.relativize(page).toString().replace('\\', '/'));
+        });
+    }
+
+    /**
+     * Writes a manifest.
+     *
+     * @param manifestFile File to write
+     * @param manifest Page path by fully qualified class name
+     * @param sourceHash Hash of the sources the pages were generated from
+     * @param comment Description stored in the file
+     * @throws IOException If the file cannot be written
+     */
+    public void writeManifest(Path manifestFile, Map<String, String> manifest, String sourceHash, String comment)
+            throws IOException {
+        Files.createDirectories(manifestFile.toAbsolutePath().getParent());
+        Properties properties = new Properties();
+        properties.putAll(manifest);
+        properties.setProperty(SOURCE_HASH_KEY, sourceHash);
+        try (Writer writer = Files.newBufferedWriter(manifestFile)) {
+            properties.store(writer, comment);
+        }
+        logger.info("Wrote manifest {} with {} classes", manifestFile, manifest.size());
+    }
+
+    /**
+     * Combines the partial manifests of all shards of a run.
+     *
+     * @param outputPath Directory the shard outputs were collected in
+     * @param sourceHash Hash of the sources the merge step documents
+     * @return Page path by fully qualified class name
+     * @throws IOException If a manifest cannot be read
+     * @throws IllegalStateException If manifests are missing, belong to runs with different shard counts
+     *         or were built from other sources
+     */
+    public Map<String, String> mergeManifests(Path outputPath, String sourceHash) throws IOException {
+        Path shardDirectory = outputPath.resolve("shards");
+        Map<Integer, Path> manifests = new TreeMap<>();
+        TreeSet<Integer> counts = new TreeSet<>();
+        if (Files.isDirectory(shardDirectory)) {
+            try (Stream<Path> files = Files.list(shardDirectory)) {
+                for (Path file : files.collect(Collectors.toList())) {
+                    Matcher matcher = MANIFEST_NAME.matcher(file.getFileName().toString());
+                    if (matcher.matches()) {
+                        manifests.put(Integer.parseInt(matcher.group(1)), file);
+                        counts.add(Integer.parseInt(matcher.group(2)));
+                    }
+                }
+            }
+        }
+        if (counts.isEmpty()) {
+            throw new IllegalStateException("No shard manifests found in " + shardDirectory);
+        }
+        if (counts.size() > 1) {
+            throw new IllegalStateException("Shard manifests of different shard counts " + counts + " in " + shardDirectory
+                + "; remove the outputs of the older run");
+        }
+        int count = counts.first();
+        List<Integer> missing = new ArrayList<>();
+        for (int index = 1; index <= count; index++) {
+            if (!manifests.containsKey(index)) {
+                missing.add(index);
+            }
+        }
+        if (!missing.isEmpty()) {
+            throw new IllegalStateException("Missing the output of shards " + missing + " of " + count);
+        }
+
+        Map<String, String> merged = new TreeMap<>();
+        List<Integer> stale = new ArrayList<>();
+        for (Map.Entry<Integer, Path> manifest : manifests.entrySet()) {
+            Properties properties = new Properties();
+            try (Reader reader = Files.newBufferedReader(manifest.getValue())) {
+                properties.load(reader);
+            }
+            if (!sourceHash.equals(properties.remove(SOURCE_HASH_KEY))) {
+                stale.add(manifest.getKey());
+            }
+            properties.stringPropertyNames().forEach(name -> merged.put(name, properties.getProperty(name)));
+        }
+        if (!stale.isEmpty()) {
+            throw new IllegalStateException("The output of shards " + stale + " of " + count
+                + " was generated from other sources; rerun them against the same checkout");
+        }
+        logger.info("Merged manifests of {} shards with {} classes", count, merged.size());
+        return merged;
+    }
+
+    /**
+     * Finds the classes whose page is not listed in a manifest or was not copied along with it.
+     *
+     * @param manifest Page path by fully qualified class name
+     * @param classes Classes that must be documented
+     * @param outputPath Directory the shard outputs were collected in
+     * @return Fully qualified names of the classes without a page
+     */
+    public List<String> findMissingPages(Map<String, String> manifest, Collection<JavaClassDoc> classes, Path outputPath) {
+        return classes.stream()
+            .map(JavaClassDoc::getFullyQualifiedName)
+            .filter(name -> !manifest.containsKey(name) || !Files.exists(outputPath.resolve(manifest.get(name))))
+            .sorted()
+            .collect(Collectors.toList());
+    }
+}
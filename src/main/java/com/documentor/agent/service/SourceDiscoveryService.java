@@ -0,0 +1,347 @@
+package com.documentor.agent.service;
+
+import com.documentor.agent.config.DocumentorConfig;
+import com.documentor.agent.util.IgnoreRules;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Service that discovers the Java source files worth documenting in a repository.
+ * <p>
+ * Build output, dependency and IDE directories are pruned during the walk instead of being
+ * filtered afterwards. Directories and files are further excluded by .gitignore files, a
+ * project-level .documentorignore file and the DOCUMENTOR_INCLUDE / DOCUMENTOR_EXCLUDE settings.
+ * Generated sources are detected from a {@code @Generated} annotation on their top-level type
+ * or from their header comment, and test sources are skipped unless DOCUMENTOR_INCLUDE_TESTS
+ * is enabled.
+ */
+public class SourceDiscoveryService {
+    private static final Logger logger = LoggerFactory.getLogger(SourceDiscoveryService.class);
+
+    private static final String PROJECT_IGNORE_FILE = ".documentorignore";
+    private static final Set<String> PRUNED_DIRECTORIES = Set.of(
+        ".git", ".svn", ".hg", ".idea", ".vscode", ".gradle", ".mvn", ".documentor",
+        "node_modules", "bower_components", "generated-sources", "generated-test-sources", "third-party");
+    // Build output and vendored code names are also common package names, so they are only pruned outside source roots
+    private static final Set<String> BUILD_OUTPUT_DIRECTORIES = Set.of("target", "build", "out", "bin");
+    private static final Set<String> VENDORED_DIRECTORIES = Set.of("generated", "vendor", "third_party", "thirdparty");
+    private static final Set<String> TEST_SOURCE_SETS = Set.of(
+        "test", "it", "integrationTest", "intTest", "testFixtures");
+    private static final Set<String> TEST_DIRECTORIES = Set.of(
+        "testFixtures", "test-fixtures", "testdata", "test-data");
+    private static final Pattern TEST_FILE = Pattern.compile(".+(Test|Tests|IT|TestCase)\\.java");
+    private static final Set<String> GENERATED_ANNOTATIONS = Set.of(
+        "javax.annotation.Generated", "javax.annotation.processing.Generated", "jakarta.annotation.Generated");
+    private static final Pattern GENERATED_IMPORT = Pattern.compile(
+        "\\bimport\\s+(?:javax\\s*\\.\\s*annotation(?:\\s*\\.\\s*processing)?|jakarta\\s*\\.\\s*annotation)"
+            + "\\s*\\.\\s*(?:Generated|\\*)\\s*;");
+    private static final Pattern PROLOGUE_STATEMENT = Pattern.compile("\\b(?:package|import)\\b[^;]*;");
+    private static final Pattern TYPE_DECLARATION = Pattern.compile(
+        "(?<![.\\w$])(?:class|interface|enum|record)\\s+[\\p{L}_$]");
+    private static final Pattern ANNOTATION = Pattern.compile("@\\s*([\\p{L}_$][\\w$]*(?:\\s*\\.\\s*[\\p{L}_$][\\w$]*)*)");
+    private static final Pattern PACKAGE_DECLARATION = Pattern.compile("(?m)^\\s*package\\s");
+    private static final Pattern GENERATED_HEADER = Pattern.compile(
+        "(?i)auto-?generated|generated by|do not edit|code generator");
+    // The marker is expected in the header or on the type declaration, not deep in the file
+    private static final int GENERATED_MARKER_SCAN_BYTES = 8192;
+
+    private final boolean includeTests;
+    private final List<String> includeGlobs;
+    private final List<String> excludeGlobs;
+
+    public SourceDiscoveryService(DocumentorConfig config) {
+        this.includeTests = config.getBoolean("DOCUMENTOR_INCLUDE_TESTS", false);
+        this.includeGlobs = splitGlobs(config.getString("DOCUMENTOR_INCLUDE", ""));
+        this.excludeGlobs = splitGlobs(config.getString("DOCUMENTOR_EXCLUDE", ""));
+    }
+
+    /**
+     * Finds the Java files to document in the given repository.
+     *
+     * @param repoPath Path to the repository root
+     * @return List of Java file paths
+     * @throws IOException If there is an error accessing the files
+     */
+    public List<Path> discoverJavaFiles(Path repoPath) throws IOException {
+        logger.info("Discovering Java files in repository: {}", repoPath);
+        Path root = repoPath.toAbsolutePath().normalize();
+
+        IgnoreRules configuredExcludes = IgnoreRules.parse(root, excludeGlobs);
+        IgnoreRules configuredIncludes = includeGlobs.isEmpty() ? null : IgnoreRules.parse(root, includeGlobs);
+        Path projectIgnoreFile = root.resolve(PROJECT_IGNORE_FILE);
+        IgnoreRules projectRules = Files.isRegularFile(projectIgnoreFile) ? IgnoreRules.load(projectIgnoreFile) : null;
+
+        DiscoveryVisitor visitor = new DiscoveryVisitor(root, configuredExcludes, configuredIncludes, projectRules);
+        Files.walkFileTree(root, visitor);
+
+        logger.info("Discovered {} Java files ({} directories pruned, {} files ignored, {} generated, {} tests skipped)",
+            visitor.files.size(), visitor.prunedDirectories, visitor.ignoredFiles,
+            visitor.generatedFiles, visitor.testFiles);
+        return visitor.files;
+    }
+
+    /**
+     * Checks whether a Java file was produced by a code generator.
+     *
+     * @param javaFile Java file to inspect
+     * @return true if the file carries a generated-code marker
+     */
+    public boolean isGenerated(Path javaFile) {
+        try (InputStream in = Files.newInputStream(javaFile)) {
+            String head = new String(in.readNBytes(GENERATED_MARKER_SCAN_BYTES), StandardCharsets.UTF_8);
+            if (hasGeneratedTypeAnnotation(blankCommentsAndLiterals(head))) {
+                return true;
+            }
+            // Header phrases only count before the package declaration, not in ordinary comments
+            Matcher packageDeclaration = PACKAGE_DECLARATION.matcher(head);
+            String header = packageDeclaration.find() ? head.substring(0, packageDeclaration.start()) : head;
+            return GENERATED_HEADER.matcher(header).find();
+        } catch (IOException e) {
+            logger.warn("Could not inspect {} for generated-code markers: {}", javaFile, e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Checks the annotations of the primary type declaration for a javax or jakarta {@code @Generated}.
+     * Annotations on members (e.g. Hibernate's {@code @Generated} on a field) do not count, and a
+     * simple {@code @Generated} only counts when it is imported from one of those packages.
+     *
+     * @param code Start of the source with comments and literals blanked out
+     * @return true if the primary type is annotated as generated
+     */
+    private static boolean hasGeneratedTypeAnnotation(String code) {
+        int prologueEnd = 0;
+        Matcher prologue = PROLOGUE_STATEMENT.matcher(code);
+        while (prologue.find()) {
+            prologueEnd = prologue.end();
+        }
+        Matcher typeDeclaration = TYPE_DECLARATION.matcher(code);
+        if (!typeDeclaration.find(prologueEnd)) {
+            return false;
+        }
+
+        boolean imported = GENERATED_IMPORT.matcher(code.substring(0, prologueEnd)).find();
+        Matcher annotation = ANNOTATION.matcher(code.substring(prologueEnd, typeDeclaration.start()));
+        while (annotation.find()) {
+            String name = annotation.group(1).replaceAll("\\s", "");
+            if (GENERATED_ANNOTATIONS.contains(name) || (imported && name.equals("Generated"))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Replaces comments and the contents of string, text block and character literals with spaces,
+     * so that annotations and keywords are only matched in code.
+     *
+     * @param source Java source text
+     * @return Source of the same length with comments and literals blanked out
+     */
+    private static String blankCommentsAndLiterals(String source) {
+        StringBuilder code = new StringBuilder(source);
+        int i = 0;
+        while (i < code.length()) {
+            char c = code.charAt(i);
+            char next = i + 1 < code.length() ? code.charAt(i + 1) : 0;
+            int end;
+            if (c == '/' && next == '/') {
+                end = indexOrEnd(source.indexOf('\n', i), source, 0);
+            } else if (c == '/' && next == '*') {
+                end = indexOrEnd(source.indexOf("*/", i + 2), source, 2);
+            } else if (source.startsWith("\"\"\"", i)) {
+                end = indexOrEnd(source.indexOf("\"\"\"", i + 3), source, 3);
+            } else if (c == '"' || c == '\'') {
+                end = i + 1;
+                while (end < source.length() && source.charAt(end) != c && source.charAt(end) != '\n') {
+                    end += source.charAt(end) == '\\' ? 2 : 1;
+                }
+                end = Math.min(end + 1, source.length());
+            } else {
+                i++;
+                continue;
+            }
+            for (int j = i; j < end; j++) {
+                if (code.charAt(j) != '\n') {
+                    code.setCharAt(j, ' ');
+                }
+            }
+            i = end;
+        }
+        return code.toString();
+    }
+
+    private static int indexOrEnd(int index, String source, int delimiterLength) {
+        return index < 0 ? source.length() : index + delimiterLength;
+    }
+
+    private static List<String> splitGlobs(String value) {
+        return Arrays.stream(value.split(","))
+            .map(String::strip)
+            .filter(s -> !s.isEmpty())
+            .collect(Collectors.toList());
+    }
+
+    /**
+     * Walks the repository, keeping a stack of the .gitignore rules in scope.
+     */
+    private class DiscoveryVisitor extends SimpleFileVisitor<Path> {
+        private final Path root;
+        private final IgnoreRules configuredExcludes;
+        private final IgnoreRules configuredIncludes;
+        private final IgnoreRules projectRules;
+        private final Deque<IgnoreRules> gitIgnoreStack = new ArrayDeque<>();
+        private final Deque<Path> gitIgnoreOwners = new ArrayDeque<>();
+        private final List<Path> files = new ArrayList<>();
+        private int prunedDirectories;
+        private int ignoredFiles;
+        private int generatedFiles;
+        private int testFiles;
+
+        DiscoveryVisitor(Path root, IgnoreRules configuredExcludes, IgnoreRules configuredIncludes, IgnoreRules projectRules) {
+            this.root = root;
+            this.configuredExcludes = configuredExcludes;
+            this.configuredIncludes = configuredIncludes;
+            this.projectRules = projectRules;
+        }
+
+        @Override
+        public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
+            if (!dir.equals(root)) {
+                if (isPruned(dir) || isIgnored(dir, true)) {
+                    prunedDirectories++;
+                    return FileVisitResult.SKIP_SUBTREE;
+                }
+            }
+
+            Path gitIgnore = dir.resolve(".gitignore");
+            if (Files.isRegularFile(gitIgnore)) {
+                IgnoreRules rules = IgnoreRules.load(gitIgnore);
+                if (!rules.isEmpty()) {
+                    gitIgnoreStack.push(rules);
+                    gitIgnoreOwners.push(dir);
+                }
+            }
+            return FileVisitResult.CONTINUE;
+        }
+
+        @Override
+        public FileVisitResult postVisitDirectory(Path dir, IOException exc) {
+            if (!gitIgnoreOwners.isEmpty() && gitIgnoreOwners.peek().equals(dir)) {
+                gitIgnoreOwners.pop();
+                gitIgnoreStack.pop();
+            }
+            return FileVisitResult.CONTINUE;
+        }
+
+        @Override
+        public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+            if (!attrs.isRegularFile() || !file.getFileName().toString().toLowerCase(Locale.ROOT).endsWith(".java")) {
+                return FileVisitResult.CONTINUE;
+            }
+            if (!includeTests && !isMainSource(file) && TEST_FILE.matcher(file.getFileName().toString()).matches()) {
+                testFiles++;
+            } else if (isIgnored(file, false)) {
+                ignoredFiles++;
+            } else if (isGenerated(file)) {
+                generatedFiles++;
+            } else {
+                files.add(file);
+            }
+            return FileVisitResult.CONTINUE;
+        }
+
+        @Override
+        public FileVisitResult visitFileFailed(Path file, IOException exc) {
+            logger.warn("Skipping unreadable path {}: {}", file, exc.getMessage());
+            return FileVisitResult.CONTINUE;
+        }
+
+        private boolean isPruned(Path dir) {
+            String name = dir.getFileName().toString();
+            if (PRUNED_DIRECTORIES.contains(name)) {
+                return true;
+            }
+            Path relative = root.relativize(dir);
+            boolean insideSourceRoot = false;
+            for (Path segment : relative) {
+                if (segment.toString().equals("java")) {
+                    insideSourceRoot = true;
+                }
+            }
+            if (!insideSourceRoot && (BUILD_OUTPUT_DIRECTORIES.contains(name) || VENDORED_DIRECTORIES.contains(name))) {
+                return true;
+            }
+            if (includeTests) {
+                return false;
+            }
+            boolean testSourceSet = TEST_SOURCE_SETS.contains(name)
+                && dir.getParent() != null && dir.getParent().getFileName().toString().equals("src");
+            boolean topLevelTestDirectory = relative.getNameCount() == 1
+                && (name.equals("test") || name.equals("tests"));
+            return testSourceSet || topLevelTestDirectory || TEST_DIRECTORIES.contains(name);
+        }
+
+        /**
+         * Checks whether a file belongs to a src/main source set. Test source sets are pruned as
+         * directories, so the file name heuristic is only needed for other layouts; under src/main
+         * a name like LoadTest or RetryIT is production code.
+         */
+        private boolean isMainSource(Path file) {
+            Path previous = null;
+            for (Path segment : root.relativize(file)) {
+                if (previous != null && previous.toString().equals("src") && segment.toString().equals("main")) {
+                    return true;
+                }
+                previous = segment;
+            }
+            return false;
+        }
+
+        private boolean isIgnored(Path path, boolean isDirectory) {
+            if (!isDirectory && configuredIncludes != null && !Boolean.TRUE.equals(configuredIncludes.match(path, false))) {
+                return true;
+            }
+
+            // Deeper .gitignore files override shallower ones; the project file and settings override both
+            Boolean ignored = null;
+            for (var it = gitIgnoreStack.descendingIterator(); it.hasNext(); ) {
+                Boolean match = it.next().match(path, isDirectory);
+                if (match != null) {
+                    ignored = match;
+                }
+            }
+            if (projectRules != null) {
+                Boolean match = projectRules.match(path, isDirectory);
+                if (match != null) {
+                    ignored = match;
+                }
+            }
+            Boolean excluded = configuredExcludes.match(path, isDirectory);
+            if (excluded != null) {
+                ignored = excluded;
+            }
+            return Boolean.TRUE.equals(ignored);
+        }
+    }
+}
@@ -0,0 +1,235 @@
+package com.documentor.agent.service;
+
+import com.documentor.agent.model.ClassGroup;
+import com.documentor.agent.model.JavaClassDoc;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Service that groups structurally identical classes so each group is documented by the LLM only once.
+ * <p>
+ * Classes are grouped by the structural fingerprint computed by {@link JavaParserService}. The
+ * documentation of the other group members is derived from the representative's page: by
+ * substituting the entity name when the classes only differ by it (e.g. UserDto and OrderDto
+ * with userId and orderId), or otherwise as a short page linking to the representative.
+ */
+public class StructuralDeduplicationService {
+    private static final Logger logger = LoggerFactory.getLogger(StructuralDeduplicationService.class);
+
+    // Shorter entity names are too likely to occur inside unrelated words
+    private static final int MIN_STEM_LENGTH = 3;
+
+    private final boolean enabled;
+
+    /**
+     * @param enabled Whether to group classes; when false every class forms its own group
+     */
+    public StructuralDeduplicationService(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    /**
+     * Groups classes by structural fingerprint.
+     *
+     * @param classes List of parsed Java classes
+     * @return Groups in order of first appearance, singletons included
+     */
+    public List<ClassGroup> group(List<JavaClassDoc> classes) {
+        Map<String, List<JavaClassDoc>> byFingerprint = new LinkedHashMap<>();
+        for (JavaClassDoc classDoc : classes) {
+            // Classes without a fingerprint are never grouped
+            String key = enabled && classDoc.getStructuralFingerprint() != null
+                ? classDoc.getStructuralFingerprint() : "unique:" + System.identityHashCode(classDoc);
+            byFingerprint.computeIfAbsent(key, k -> new ArrayList<>()).add(classDoc);
+        }
+
+        List<ClassGroup> groups = new ArrayList<>();
+        int derived = 0;
+        for (List<JavaClassDoc> sameShape : byFingerprint.values()) {
+            for (List<JavaClassDoc> sorted : splitBySimpleName(sameShape)) {
+                groups.add(ClassGroup.builder()
+                    .representative(sorted.get(0))
+                    .members(sorted.subList(1, sorted.size()))
+                    .build());
+                derived += sorted.size() - 1;
+            }
+        }
+
+        logger.info("Grouped {} classes into {} structurally distinct groups ({} pages derived without the LLM)",
+            classes.size(), groups.size(), derived);
+        return groups;
+    }
+
+    /**
+     * Splits classes of the same shape so that no two classes of a group share a simple name: pages
+     * are named after the simple name, so such a member's page would replace its representative's.
+     *
+     * @return Groups sorted by fully qualified name, so resumed runs choose the same representatives
+     */
+    private List<List<JavaClassDoc>> splitBySimpleName(List<JavaClassDoc> sameShape) {
+        List<List<JavaClassDoc>> split = new ArrayList<>();
+        List<Set<String>> namesBySplit = new ArrayList<>();
+        sameShape.stream()
+            .sorted(Comparator.comparing(JavaClassDoc::getFullyQualifiedName))
+            .forEach(classDoc -> {
+                int index = 0;
+                while (index < split.size() && namesBySplit.get(index).contains(classDoc.getName())) {
+                    index++;
+                }
+                if (index == split.size()) {
+                    split.add(new ArrayList<>());
+                    namesBySplit.add(new HashSet<>());
+                }
+                split.get(index).add(classDoc);
+                namesBySplit.get(index).add(classDoc.getName());
+            });
+        return split;
+    }
+
+    /**
+     * Writes the documentation page of a group member, derived from its representative's page.
+     *
+     * @param representative Class documented with the LLM
+     * @param representativeDocPath Path to the representative's documentation page
+     * @param member Structurally identical class to document
+     * @param memberDocPath Path of the page to write
+     * @throws IOException If an error occurs during file reading or writing
+     */
+    public void writeDerivedDocumentation(JavaClassDoc representative, Path representativeDocPath,
+                                          JavaClassDoc member, Path memberDocPath) throws IOException {
+        String content;
+        String[] stems = entityStems(representative.getName(), member.getName());
+        if (stems != null && namesFollowStem(representative, member, stems)) {
+            content = substituteStem(Files.readString(representativeDocPath), representative, member, stems);
+            logger.info("Derived documentation for {} from {} by name substitution",
+                member.getFullyQualifiedName(), representative.getFullyQualifiedName());
+        } else {
+            content = renderSameAsPage(representative, representativeDocPath, member, memberDocPath);
+            logger.info("Linked documentation for {} to structurally identical {}",
+                member.getFullyQualifiedName(), representative.getFullyQualifiedName());
+        }
+        Files.writeString(memberDocPath, content);
+    }
+
+    /**
+     * Finds the part of two class names that differs, e.g. "User" and "Order" for UserDto and OrderDto.
+     *
+     * @return The representative's and member's stems, or null if they are too short to substitute safely
+     */
+    private String[] entityStems(String representativeName, String memberName) {
+        int prefix = 0;
+        int maxPrefix = Math.min(representativeName.length(), memberName.length());
+        while (prefix < maxPrefix && representativeName.charAt(prefix) == memberName.charAt(prefix)) {
+            prefix++;
+        }
+        if (prefix == maxPrefix) {
+            // Equal names, or one name extends the other (User and UserDto): there is no stem to swap
+            return null;
+        }
+        int suffix = 0;
+        while (suffix < maxPrefix - prefix
+               && representativeName.charAt(representativeName.length() - 1 - suffix)
+                  == memberName.charAt(memberName.length() - 1 - suffix)) {
+            suffix++;
+        }
+        // Widen the stems to whole camel-case words
+        while (prefix > 0 && !Character.isUpperCase(representativeName.charAt(prefix))) {
+            prefix--;
+        }
+        while (suffix > 0 && !Character.isUpperCase(representativeName.charAt(representativeName.length() - suffix))) {
+            suffix--;
+        }
+        String from = representativeName.substring(prefix, representativeName.length() - suffix);
+        String to = memberName.substring(prefix, memberName.length() - suffix);
+        if (from.length() < MIN_STEM_LENGTH || to.length() < MIN_STEM_LENGTH) {
+            return null;
+        }
+        return new String[] {from, to};
+    }
+
+    /**
+     * Checks that every declared name of the member is the representative's name with the stem replaced.
+     */
+    private boolean namesFollowStem(JavaClassDoc representative, JavaClassDoc member, String[] stems) {
+        List<String> representativeNames = representative.getDeclaredNames();
+        List<String> memberNames = member.getDeclaredNames();
+        if (representativeNames == null || memberNames == null || representativeNames.size() != memberNames.size()) {
+            return false;
+        }
+        for (int i = 0; i < representativeNames.size(); i++) {
+            String expected = replaceStem(representativeNames.get(i), stems[0], stems[1]);
+            if (!expected.equals(memberNames.get(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private String substituteStem(String content, JavaClassDoc representative, JavaClassDoc member, String[] stems) {
+        // Package names are replaced first since they need not follow the stem
+        String result = content.replace(representative.getFullyQualifiedName(), member.getFullyQualifiedName());
+        if (!representative.getPackageName().equals(member.getPackageName()) && !representative.getPackageName().isEmpty()) {
+            // Only standalone mentions, so that names of sub-packages are left alone
+            Pattern packageName = Pattern.compile("(?<![\\w.])" + Pattern.quote(representative.getPackageName()) + "(?![\\w.])");
+            result = packageName.matcher(result).replaceAll(Matcher.quoteReplacement(member.getPackageName()));
+        }
+        return replaceStem(result, stems[0], stems[1]);
+    }
+
+    /**
+     * Replaces the stem in its capitalized and lower-case forms where it starts a camel-case word.
+     */
+    private String replaceStem(String text, String from, String to) {
+        String result = replaceWord(text, from, to);
+        String lowerFrom = Character.toLowerCase(from.charAt(0)) + from.substring(1);
+        String lowerTo = Character.toLowerCase(to.charAt(0)) + to.substring(1);
+        return replaceWord(result, lowerFrom, lowerTo);
+    }
+
+    private String replaceWord(String text, String from, String to) {
+        // A capitalized stem may follow a lower-case letter (getUserId); a lower-case one must start a word
+        String lookBehind = Character.isUpperCase(from.charAt(0)) ? "" : "(?<![\\p{L}\\p{N}])";
+        Pattern pattern = Pattern.compile(lookBehind + Pattern.quote(from) + "(?!\\p{Ll})");
+        return pattern.matcher(text).replaceAll(Matcher.quoteReplacement(to));
+    }
+
+    private String renderSameAsPage(JavaClassDoc representative, Path representativeDocPath,
+                                    JavaClassDoc member, Path memberDocPath) {
+        Path link = memberDocPath.toAbsolutePath().getParent()
+            .relativize(representativeDocPath.toAbsolutePath());
+        StringBuilder page = new StringBuilder();
+        page.append("# ").append(member.getName()).append("\n\n");
+        page.append("**Package:** `").append(member.getPackageName()).append("`\n\n");
+        if (member.getDescription() != null && !member.getDescription().isBlank()) {
+            page.append(member.getDescription().strip()).append("\n\n");
+        }
+        page.append("`").append(member.getName()).append("` is structurally identical to [")
+            .append(representative.getName()).append("](").append(link.toString().replace('\\', '/'))
+            .append("). Its documentation applies with the following names substituted.\n\n");
+        page.append("| ").append(representative.getName()).append(" | ").append(member.getName()).append(" |\n");
+        page.append("|---|---|\n");
+        List<String> representativeNames = representative.getDeclaredNames();
+        List<String> memberNames = member.getDeclaredNames();
+        for (int i = 0; i < Math.min(representativeNames.size(), memberNames.size()); i++) {
+            if (!representativeNames.get(i).equals(memberNames.get(i))) {
+                page.append("| `").append(representativeNames.get(i)).append("` | `")
+                    .append(memberNames.get(i)).append("` |\n");
+            }
+        }
+        return page.toString();
+    }
+}
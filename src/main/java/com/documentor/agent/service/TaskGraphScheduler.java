@@ -0,0 +1,243 @@
+package com.documentor.agent.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Executes a graph of dependent work units on a fixed number of threads.
+ * <p>
+ * A task becomes ready once all of its dependencies have completed. Among ready tasks the one
+ * with the longest estimated path to the end of the graph (its own cost plus that of its most
+ * expensive chain of dependents) runs first, so the critical path and large tasks start early
+ * and the run does not end waiting for one long task started last.
+ * <p>
+ * Tasks may also carry an importance. More important ready tasks always run before less important
+ * ones, and a task is at least as important as the tasks depending on it.
+ */
+public class TaskGraphScheduler {
+    private static final Logger logger = LoggerFactory.getLogger(TaskGraphScheduler.class);
+
+    /**
+     * Work performed by a task.
+     */
+    @FunctionalInterface
+    public interface TaskAction {
+        void run() throws Exception;
+    }
+
+    private final String name;
+    private final int concurrency;
+    private final Map<String, Task> tasks = new LinkedHashMap<>();
+
+    /**
+     * @param name Name of the graph, used in log messages
+     * @param concurrency Maximum number of tasks running at the same time
+     */
+    public TaskGraphScheduler(String name, int concurrency) {
+        this.name = name;
+        this.concurrency = Math.max(1, concurrency);
+    }
+
+    /**
+     * Adds a task to the graph. Dependencies must be added before the tasks depending on them,
+     * which keeps the graph acyclic.
+     *
+     * @param id Unique task id
+     * @param estimatedCost Relative cost used for prioritization, e.g. expected output tokens
+     * @param dependencies Ids of tasks that must complete first
+     * @param action Work to perform
+     * @throws IllegalArgumentException If the id is taken or a dependency is unknown
+     */
+    public void addTask(String id, long estimatedCost, List<String> dependencies, TaskAction action) {
+        addTask(id, 0, estimatedCost, dependencies, action);
+    }
+
+    /**
+     * Adds a task with an importance to the graph. Dependencies must be added before the tasks
+     * depending on them, which keeps the graph acyclic.
+     *
+     * @param id Unique task id
+     * @param importance Higher values run first, regardless of cost
+     * @param estimatedCost Relative cost used for prioritization among equally important tasks
+     * @param dependencies Ids of tasks that must complete first
+     * @param action Work to perform
+     * @throws IllegalArgumentException If the id is taken or a dependency is unknown
+     */
+    public void addTask(String id, int importance, long estimatedCost, List<String> dependencies, TaskAction action) {
+        if (tasks.containsKey(id)) {
+            throw new IllegalArgumentException("Duplicate task: " + id);
+        }
+        Task task = new Task(id, importance, Math.max(0, estimatedCost), action, tasks.size());
+        for (String dependencyId : dependencies) {
+            Task dependency = tasks.get(dependencyId);
+            if (dependency == null) {
+                throw new IllegalArgumentException("Task " + id + " depends on unknown task " + dependencyId);
+            }
+            if (!dependency.dependents.contains(task)) {
+                dependency.dependents.add(task);
+                task.pendingDependencies.incrementAndGet();
+            }
+        }
+        tasks.put(id, task);
+    }
+
+    /**
+     * Runs every task and waits for the graph to finish. After the first failure no further
+     * tasks are started; tasks already running are allowed to finish.
+     *
+     * @throws ExecutionException If a task failed; the cause is the task's exception
+     * @throws InterruptedException If the calling thread is interrupted while waiting
+     */
+    public void execute() throws ExecutionException, InterruptedException {
+        if (tasks.isEmpty()) {
+            return;
+        }
+        computeRanks();
+
+        AtomicInteger threadCount = new AtomicInteger();
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(concurrency, concurrency, 0L, TimeUnit.MILLISECONDS,
+            new PriorityBlockingQueue<>(), runnable -> new Thread(runnable, name + "-" + threadCount.incrementAndGet()));
+        CountDownLatch finished = new CountDownLatch(tasks.size());
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        AtomicLong serialNanos = new AtomicLong();
+        long start = System.nanoTime();
+
+        try {
+            // Start the workers first so every task goes through the priority queue
+            executor.prestartAllCoreThreads();
+            tasks.values().stream()
+                .filter(task -> task.pendingDependencies.get() == 0)
+                .map(task -> new ScheduledTask(task, executor, finished, failure, serialNanos))
+                .sorted()
+                .forEach(executor::execute);
+            finished.await();
+        } finally {
+            executor.shutdownNow();
+        }
+
+        if (failure.get() != null) {
+            throw new ExecutionException("Task graph " + name + " failed: " + failure.get().getMessage(), failure.get());
+        }
+        logger.info("Finished {} tasks of {} in {} ms using {} threads (serial sum {} ms)",
+            tasks.size(), name, Duration.ofNanos(System.nanoTime() - start).toMillis(), concurrency,
+            Duration.ofNanos(serialNanos.get()).toMillis());
+    }
+
+    /**
+     * Computes each task's upward rank: its cost plus the highest rank among its dependents,
+     * and raises its importance to that of its most important dependent.
+     */
+    private void computeRanks() {
+        // Dependents are always added after their dependencies, so reverse insertion order is a valid order
+        List<Task> reversed = new ArrayList<>(tasks.values());
+        for (int i = reversed.size() - 1; i >= 0; i--) {
+            Task task = reversed.get(i);
+            long highestDependent = 0;
+            for (Task dependent : task.dependents) {
+                highestDependent = Math.max(highestDependent, dependent.rank);
+                task.importance = Math.max(task.importance, dependent.importance);
+            }
+            task.rank = task.estimatedCost + highestDependent;
+        }
+    }
+
+    private static final class Task {
+        private final String id;
+        private int importance;
+        private final long estimatedCost;
+        private final TaskAction action;
+        private final int order;
+        private final List<Task> dependents = new ArrayList<>();
+        private final AtomicInteger pendingDependencies = new AtomicInteger();
+        private long rank;
+
+        private Task(String id, int importance, long estimatedCost, TaskAction action, int order) {
+            this.id = id;
+            this.importance = importance;
+            this.estimatedCost = estimatedCost;
+            this.action = action;
+            this.order = order;
+        }
+    }
+
+    /**
+     * Runnable ordered by importance and rank so the executor's priority queue hands out the most critical ready task.
+     */
+    private static final class ScheduledTask implements Runnable, Comparable<ScheduledTask> {
+        private final Task task;
+        private final ThreadPoolExecutor executor;
+        private final CountDownLatch finished;
+        private final AtomicReference<Throwable> failure;
+        private final AtomicLong serialNanos;
+
+        private ScheduledTask(Task task, ThreadPoolExecutor executor, CountDownLatch finished,
+                              AtomicReference<Throwable> failure, AtomicLong serialNanos) {
+            this.task = task;
+            this.executor = executor;
+            this.finished = finished;
+            this.failure = failure;
+            this.serialNanos = serialNanos;
+        }
+
+        @Override
+        public void run() {
+            if (failure.get() == null) {
+                long start = System.nanoTime();
+                try {
+                    task.action.run();
+                } catch (Throwable e) {
+                    if (failure.compareAndSet(null, e)) {
+                        logger.error("Task {} failed: {}", task.id, e.getMessage());
+                    }
+                } finally {
+                    serialNanos.addAndGet(System.nanoTime() - start);
+                }
+            }
+            if (failure.get() != null) {
+                // Nothing further is started; count this task and everything after it as finished
+                skip(task);
+                return;
+            }
+            finished.countDown();
+            for (Task dependent : task.dependents) {
+                if (dependent.pendingDependencies.decrementAndGet() == 0) {
+                    executor.execute(new ScheduledTask(dependent, executor, finished, failure, serialNanos));
+                }
+            }
+        }
+
+        private void skip(Task skipped) {
+            finished.countDown();
+            for (Task dependent : skipped.dependents) {
+                // Release each dependent exactly once, when its last dependency is resolved
+                if (dependent.pendingDependencies.decrementAndGet() == 0) {
+                    skip(dependent);
+                }
+            }
+        }
+
+        @Override
+        public int compareTo(ScheduledTask other) {
+            int byImportance = Integer.compare(other.task.importance, task.importance);
+            if (byImportance != 0) {
+                return byImportance;
+            }
+            int byRank = Long.compare(other.task.rank, task.rank);
+            return byRank != 0 ? byRank : Integer.compare(task.order, other.task.order);
+        }
+    }
+}
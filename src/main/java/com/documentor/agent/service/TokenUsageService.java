@@ -0,0 +1,345 @@
+package com.documentor.agent.service;
+
+import com.documentor.agent.model.RenderMode;
+import dev.langchain4j.model.output.TokenUsage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+import java.util.function.Supplier;
+
+/**
+ * Service that accounts for the tokens of every LLM call and keeps a run within its token budgets.
+ * <p>
+ * Calls are attributed to the page type and class set with {@link #attributed(String, String, Supplier)}
+ * on the calling thread. The budget works like the {@link DeadlineService}: the expected output of
+ * all pages is registered up front and converted into total tokens with the observed ratio of
+ * total to output tokens. While all remaining work fits in the budget left, pages are generated
+ * in full; after that they switch to the reduced prompt, and pages that would not fit at all are
+ * rendered from templates. The tokens of pages in progress are reserved, so concurrent pages
+ * cannot overrun the budget together.
+ * <p>
+ * The repository budget covers all runs on a repository: its usage is kept in a state file that
+ * is updated after every call, and starts over when the file is deleted. The shards of a run and
+ * the merge step share the file; it is updated under a file lock and read again before each page
+ * is admitted, so all of them stay within one cap.
+ */
+public class TokenUsageService {
+    private static final Logger logger = LoggerFactory.getLogger(TokenUsageService.class);
+    private static final ThreadLocal<String[]> ATTRIBUTION = new ThreadLocal<>();
+    private static final String UNATTRIBUTED = "other";
+    // File locks are held by the whole process, so threads of this process take turns on the file first
+    private static final Object REPOSITORY_FILE_LOCK = new Object();
+
+    // Prompts carry the class source, so a call reads several times what it writes; observed calls refine this
+    private static final long PRIOR_OUTPUT_TOKENS = 1000;
+    private static final long PRIOR_TOTAL_TOKENS = 4000;
+
+    private final long runBudget;
+    private final long repositoryBudget;
+    private final Path repositoryUsageFile;
+    private long repositoryTokens;
+    private final Map<String, Tally> byPageType = new TreeMap<>();
+    private final Map<String, Tally> byClass = new TreeMap<>();
+    private final Tally total = new Tally();
+    private long pendingFullTokens;
+    private long reservedOutputTokens;
+    private final Map<RenderMode, Integer> pagesByMode = new EnumMap<>(RenderMode.class);
+
+    /**
+     * @param runBudget Maximum tokens of this run, or 0 for no limit
+     * @param repositoryBudget Maximum tokens of all runs on the repository, or 0 for no limit
+     * @param repositoryUsageFile File holding the tokens used by all runs on the repository
+     */
+    public TokenUsageService(long runBudget, long repositoryBudget, Path repositoryUsageFile) {
+        this.runBudget = runBudget;
+        this.repositoryBudget = repositoryBudget;
+        this.repositoryUsageFile = repositoryUsageFile;
+        if (repositoryBudget > 0) {
+            this.repositoryTokens = Math.max(0, updateRepositoryTokens(0));
+        }
+    }
+
+    /**
+     * Checks whether the run is limited by a run or repository token budget.
+     *
+     * @return true if a budget is configured
+     */
+    public boolean hasBudget() {
+        return runBudget > 0 || repositoryBudget > 0;
+    }
+
+    /**
+     * Performs LLM calls attributed to a page type and class on the current thread.
+     *
+     * @param pageType Kind of work, e.g. "class", "example" or "overview"
+     * @param subject Fully qualified name of the class the call is for, or null
+     * @param calls Work performing the calls
+     * @param <T> Result type of the work
+     * @return Result of the work
+     */
+    public static <T> T attributed(String pageType, String subject, Supplier<T> calls) {
+        String[] previous = ATTRIBUTION.get();
+        ATTRIBUTION.set(new String[] {pageType, subject});
+        try {
+            return calls.get();
+        } finally {
+            if (previous != null) {
+                ATTRIBUTION.set(previous);
+            } else {
+                ATTRIBUTION.remove();
+            }
+        }
+    }
+
+    /**
+     * Records the usage of a completed LLM call under the current thread's attribution.
+     * The repository usage file is updated outside the monitor, so waiting for the file lock of
+     * another process does not hold up the other threads of this run.
+     *
+     * @param usage Token usage reported with the response, or null if none was reported
+     */
+    public void record(TokenUsage usage) {
+        if (usage == null) {
+            return;
+        }
+        long input = usage.inputTokenCount() != null ? usage.inputTokenCount() : 0;
+        long output = usage.outputTokenCount() != null ? usage.outputTokenCount() : 0;
+        String[] attribution = ATTRIBUTION.get();
+        synchronized (this) {
+            total.add(input, output);
+            byPageType.computeIfAbsent(attribution != null ? attribution[0] : UNATTRIBUTED, k -> new Tally()).add(input, output);
+            if (attribution != null && attribution[1] != null) {
+                byClass.computeIfAbsent(attribution[1], k -> new Tally()).add(input, output);
+            }
+        }
+        if (repositoryBudget > 0) {
+            applyRepositoryTokens(updateRepositoryTokens(input + output), input + output);
+        }
+    }
+
+    /**
+     * Registers a page that will be generated later in the run.
+     *
+     * @param fullOutputTokens Expected output of the full page
+     */
+    public synchronized void registerPage(long fullOutputTokens) {
+        pendingFullTokens += fullOutputTokens;
+    }
+
+    /**
+     * Chooses how a registered page is rendered, given the budget left and the work still pending,
+     * and reserves the tokens it is expected to use.
+     *
+     * @param fullOutputTokens Expected output of the full page, as registered
+     * @param reducedOutputTokens Expected output of the reduced page, or 0 if it has no reduced form
+     * @return Render mode of the page; must be passed to {@link #end} once the page is written
+     */
+    public RenderMode begin(long fullOutputTokens, long reducedOutputTokens) {
+        if (repositoryBudget > 0) {
+            // Other shards may have spent tokens since the last call of this process
+            applyRepositoryTokens(updateRepositoryTokens(0), 0);
+        }
+        synchronized (this) {
+            return chooseMode(fullOutputTokens, reducedOutputTokens);
+        }
+    }
+
+    private RenderMode chooseMode(long fullOutputTokens, long reducedOutputTokens) {
+        long pendingFull = pendingFullTokens;
+        pendingFullTokens -= fullOutputTokens;
+        if (!hasBudget()) {
+            return RenderMode.FULL;
+        }
+
+        double tokensPerOutputToken = tokensPerOutputToken();
+        double available = remainingTokens() - reservedOutputTokens * tokensPerOutputToken;
+        RenderMode mode;
+        if (pendingFull * tokensPerOutputToken <= available) {
+            mode = RenderMode.FULL;
+        } else if (reducedOutputTokens > 0 && reducedOutputTokens * tokensPerOutputToken <= available) {
+            mode = RenderMode.REDUCED;
+        } else if (reducedOutputTokens <= 0 && fullOutputTokens * tokensPerOutputToken <= available) {
+            mode = RenderMode.FULL;
+        } else {
+            mode = RenderMode.TEMPLATE;
+        }
+        reservedOutputTokens += reservation(mode, fullOutputTokens, reducedOutputTokens);
+        pagesByMode.merge(mode, 1, Integer::sum);
+        if (mode != RenderMode.FULL) {
+            logger.debug("Rendering page as {}: {} tokens left, {} output tokens pending", mode,
+                Math.round(available), pendingFull);
+        }
+        return mode;
+    }
+
+    /**
+     * Releases the tokens reserved for a page once its calls are recorded.
+     *
+     * @param mode Render mode returned by {@link #begin}
+     * @param fullOutputTokens Expected output of the full page, as registered
+     * @param reducedOutputTokens Expected output of the reduced page, or 0 if it has no reduced form
+     */
+    public synchronized void end(RenderMode mode, long fullOutputTokens, long reducedOutputTokens) {
+        if (hasBudget()) {
+            reservedOutputTokens -= reservation(mode, fullOutputTokens, reducedOutputTokens);
+        }
+    }
+
+    /**
+     * Formats the token usage of the run by page type and for the most expensive classes.
+     *
+     * @param classCount Number of most expensive classes to list
+     * @return Report text
+     */
+    public synchronized String formatReport(int classCount) {
+        StringBuilder report = new StringBuilder();
+        report.append(String.format(Locale.ROOT, "Token usage: %d calls, %d input + %d output = %d tokens",
+            total.calls, total.inputTokens, total.outputTokens, total.total()));
+        if (runBudget > 0) {
+            report.append(String.format(Locale.ROOT, "; run budget %d", runBudget));
+        }
+        if (repositoryBudget > 0) {
+            report.append(String.format(Locale.ROOT, "; repository budget %d, %d used including other runs",
+                repositoryBudget, repositoryTokens));
+        }
+        if (pagesByMode.getOrDefault(RenderMode.REDUCED, 0) + pagesByMode.getOrDefault(RenderMode.TEMPLATE, 0) > 0) {
+            report.append(String.format(Locale.ROOT, "%nBudget: %d pages full, %d reduced, %d from templates",
+                pagesByMode.getOrDefault(RenderMode.FULL, 0), pagesByMode.getOrDefault(RenderMode.REDUCED, 0),
+                pagesByMode.getOrDefault(RenderMode.TEMPLATE, 0)));
+        }
+        report.append(String.format(Locale.ROOT, "%nBy page type:"));
+        byPageType.forEach((pageType, tally) -> report.append(format(pageType, tally)));
+        if (!byClass.isEmpty()) {
+            report.append(String.format(Locale.ROOT, "%nMost expensive classes:"));
+            byClass.entrySet().stream()
+                .sorted(Map.Entry.<String, Tally>comparingByValue(Comparator.comparingLong(Tally::total)).reversed())
+                .limit(classCount)
+                .forEach(entry -> report.append(format(entry.getKey(), entry.getValue())));
+        }
+        return report.toString();
+    }
+
+    private synchronized void applyRepositoryTokens(long tokens, long addedTokens) {
+        // Updates of concurrent calls can complete out of order, and the shared total only grows
+        repositoryTokens = tokens >= 0 ? Math.max(repositoryTokens, tokens) : repositoryTokens + addedTokens;
+    }
+
+    private long reservation(RenderMode mode, long fullOutputTokens, long reducedOutputTokens) {
+        switch (mode) {
+            case FULL:
+                return fullOutputTokens;
+            case REDUCED:
+                return reducedOutputTokens;
+            default:
+                return 0;
+        }
+    }
+
+    private double remainingTokens() {
+        double remaining = Double.MAX_VALUE;
+        if (runBudget > 0) {
+            remaining = runBudget - total.total();
+        }
+        if (repositoryBudget > 0) {
+            remaining = Math.min(remaining, repositoryBudget - repositoryTokens);
+        }
+        return remaining;
+    }
+
+    private double tokensPerOutputToken() {
+        // The prior counts as one call, so the estimate is sensible before the first calls complete
+        return (double) (PRIOR_TOTAL_TOKENS + total.total()) / (PRIOR_OUTPUT_TOKENS + total.outputTokens);
+    }
+
+    private String format(String name, Tally tally) {
+        return String.format(Locale.ROOT, "%n  %-60s %5d calls %9d in %8d out", name, tally.calls,
+            tally.inputTokens, tally.outputTokens);
+    }
+
+    /**
+     * Adds tokens to the repository usage under the lock shared by all processes, and reads the total.
+     *
+     * @param addedTokens Tokens of a completed call, or 0 to only read the total
+     * @return Tokens used by all runs on the repository, or -1 if the file could not be updated
+     */
+    private long updateRepositoryTokens(long addedTokens) {
+        Path directory = repositoryUsageFile.toAbsolutePath().getParent();
+        synchronized (REPOSITORY_FILE_LOCK) {
+            try {
+                Files.createDirectories(directory);
+                // The lock file is kept, so every process locks the same file
+                try (FileChannel lockChannel = FileChannel.open(directory.resolve(repositoryUsageFile.getFileName() + ".lock"),
+                        StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+                    // Held until the channel is closed
+                    lockChannel.lock();
+                    long tokens = loadRepositoryTokens() + addedTokens;
+                    if (addedTokens > 0) {
+                        saveRepositoryTokens(directory, tokens);
+                    }
+                    return tokens;
+                }
+            } catch (IOException e) {
+                logger.warn("Could not update token usage in {}: {}", repositoryUsageFile, e.getMessage());
+                return -1;
+            }
+        }
+    }
+
+    private long loadRepositoryTokens() {
+        if (!Files.exists(repositoryUsageFile)) {
+            return 0;
+        }
+        Properties properties = new Properties();
+        try (Reader reader = Files.newBufferedReader(repositoryUsageFile)) {
+            properties.load(reader);
+            return Long.parseLong(properties.getProperty("tokens", "0"));
+        } catch (IOException | NumberFormatException e) {
+            logger.warn("Could not read token usage {}: {}", repositoryUsageFile, e.getMessage());
+            return 0;
+        }
+    }
+
+    private void saveRepositoryTokens(Path directory, long tokens) throws IOException {
+        Properties properties = new Properties();
+        properties.setProperty("tokens", Long.toString(tokens));
+        // Write through a temporary file so an interrupted run never leaves a truncated count
+        Path temp = Files.createTempFile(directory, "usage", ".tmp");
+        try (Writer writer = Files.newBufferedWriter(temp)) {
+            properties.store(writer, "Tokens used by all runs on the repository; delete to reset");
+        }
+        Files.move(temp, repositoryUsageFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Calls and tokens of a page type or class.
+     */
+    private static final class Tally {
+        private long calls;
+        private long inputTokens;
+        private long outputTokens;
+
+        private void add(long input, long output) {
+            calls++;
+            inputTokens += input;
+            outputTokens += output;
+        }
+
+        private long total() {
+            return inputTokens + outputTokens;
+        }
+    }
+}
@@ -0,0 +1,412 @@
+package com.documentor.agent.service;
+
+import com.documentor.agent.model.BuildModule;
+import com.documentor.agent.model.ClassGroup;
+import com.documentor.agent.model.FieldDoc;
+import com.documentor.agent.model.JavaClassDoc;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.FileSystems;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Service that keeps the documentation of a local checkout up to date while its sources are edited.
+ * <p>
+ * Changes are collected with a {@link WatchService} until no further event arrives within the
+ * debounce interval. The changed files are then re-parsed into the in-memory model kept since the
+ * initial run, and only their class pages and package summaries are regenerated. Overview pages
+ * and guides are regenerated only when the public surface of a class changed, or a class was
+ * added or removed.
+ * <p>
+ * The set of documented files is kept between updates, so edits of known files need no discovery
+ * pass. The checkout is discovered again only for unknown files, changed ignore files and lost
+ * events; files discovery excluded are remembered until then. Structurally identical classes stay
+ * grouped as in the initial run: when a group's representative changes, its members' derived
+ * pages are written again from the new page.
+ */
+public class WatchModeService {
+    private static final Logger logger = LoggerFactory.getLogger(WatchModeService.class);
+    private static final Set<String> IGNORE_FILES = Set.of(".gitignore", ".documentorignore");
+
+    private final SourceDiscoveryService sourceDiscoveryService;
+    private final JavaParserService javaParserService;
+    private final StructuralDeduplicationService deduplicationService;
+    private final BuildModuleService buildModuleService;
+    private final DocumentationTaskService taskService;
+    private final DocumentationGeneratorService generatorService;
+    private final Duration debounce;
+    private final int concurrency;
+    private final Map<WatchKey, Path> watchedDirectories = new HashMap<>();
+    private final Set<Path> documentedFiles = new LinkedHashSet<>();
+    private final Set<Path> excludedFiles = new HashSet<>();
+    private final Map<String, String> representatives = new HashMap<>();
+    private boolean ignoreRulesChanged;
+
+    public WatchModeService(SourceDiscoveryService sourceDiscoveryService, JavaParserService javaParserService,
+                            StructuralDeduplicationService deduplicationService, BuildModuleService buildModuleService,
+                            DocumentationTaskService taskService, DocumentationGeneratorService generatorService,
+                            Duration debounce, int concurrency) {
+        this.sourceDiscoveryService = sourceDiscoveryService;
+        this.javaParserService = javaParserService;
+        this.deduplicationService = deduplicationService;
+        this.buildModuleService = buildModuleService;
+        this.taskService = taskService;
+        this.generatorService = generatorService;
+        this.debounce = debounce;
+        this.concurrency = concurrency;
+    }
+
+    /**
+     * Watches a checkout and regenerates the documentation of changed sources until the thread is interrupted.
+     *
+     * @param sourcePath Root of the local checkout
+     * @param repositoryName Name of the repository
+     * @param outputPath Directory the documentation was written to
+     * @param modules Modules of the build, empty for a single-module build
+     * @param javaFiles Files discovered by the initial run
+     * @param classesByFile Parsed classes of the initial run by source file
+     * @throws IOException If the checkout cannot be watched
+     * @throws InterruptedException If the thread is interrupted while waiting for changes
+     */
+    public void watch(Path sourcePath, String repositoryName, Path outputPath, List<BuildModule> modules,
+                      List<Path> javaFiles, Map<Path, JavaClassDoc> classesByFile) throws IOException, InterruptedException {
+        Path root = sourcePath.toAbsolutePath().normalize();
+        Map<Path, JavaClassDoc> model = new LinkedHashMap<>();
+        classesByFile.forEach((file, classDoc) -> model.put(file.toAbsolutePath().normalize(), classDoc));
+        javaFiles.forEach(file -> documentedFiles.add(file.toAbsolutePath().normalize()));
+        groupsByModule(classesByModule(root, modules, model)).values().forEach(this::rememberRepresentatives);
+
+        try (WatchService watchService = FileSystems.getDefault().newWatchService()) {
+            registerTree(watchService, root, outputPath.toAbsolutePath().normalize());
+            logger.info("Watching {} directories of {} for changes", watchedDirectories.size(), root);
+            System.out.println("Watching " + root + " for changes; press Ctrl+C to stop");
+
+            while (!Thread.currentThread().isInterrupted()) {
+                Set<Path> touched = new LinkedHashSet<>();
+                boolean overflow = collect(watchService.take(), watchService, touched, outputPath);
+                // Editors save in bursts (temporary file, rename, touch): wait until changes settle
+                WatchKey next;
+                while ((next = watchService.poll(debounce.toMillis(), TimeUnit.MILLISECONDS)) != null) {
+                    overflow |= collect(next, watchService, touched, outputPath);
+                }
+                if (overflow) {
+                    // Events were lost, so every known file is checked
+                    touched.addAll(model.keySet());
+                }
+                boolean rediscover = overflow || ignoreRulesChanged;
+                ignoreRulesChanged = false;
+                if (touched.isEmpty() && !rediscover) {
+                    continue;
+                }
+                try {
+                    update(root, repositoryName, outputPath, modules, model, touched, rediscover);
+                } catch (ExecutionException | IOException e) {
+                    // Keep watching; the next save of the file retries it
+                    logger.error("Could not update documentation: {}", e.getMessage(), e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Re-parses the touched files and regenerates the affected pages.
+     */
+    private void update(Path root, String repositoryName, Path outputPath, List<BuildModule> modules,
+                        Map<Path, JavaClassDoc> model, Set<Path> touched, boolean rediscover)
+            throws IOException, ExecutionException, InterruptedException {
+        long start = System.nanoTime();
+        updateDocumentedFiles(root, touched, rediscover);
+
+        Set<Path> changed = new LinkedHashSet<>();
+        touched.stream().filter(documentedFiles::contains).forEach(changed::add);
+        documentedFiles.stream().filter(file -> !model.containsKey(file)).forEach(changed::add);
+        Set<Path> removed = model.keySet().stream()
+            .filter(file -> !documentedFiles.contains(file))
+            .collect(Collectors.toCollection(LinkedHashSet::new));
+        if (changed.isEmpty() && removed.isEmpty()) {
+            return;
+        }
+
+        boolean surfaceChanged = false;
+        Map<String, Set<String>> affectedPackages = new TreeMap<>();
+        Set<String> changedClasses = new HashSet<>();
+        for (Path file : changed) {
+            JavaClassDoc updated = javaParserService.parseJavaFile(file);
+            JavaClassDoc previous = updated != null ? model.put(file, updated) : model.remove(file);
+            surfaceChanged |= !Objects.equals(publicSurface(previous), publicSurface(updated));
+            String module = moduleOf(file, root, modules);
+            if (previous != null) {
+                affectedPackages.computeIfAbsent(module, k -> new HashSet<>()).add(previous.getPackageName());
+                changedClasses.add(previous.getFullyQualifiedName());
+                if (updated == null || !previous.getName().equals(updated.getName())) {
+                    deletePage(moduleOutputPath(outputPath, module, modules).resolve("api").resolve(previous.getName() + ".md"));
+                }
+            }
+            if (updated != null) {
+                affectedPackages.computeIfAbsent(module, k -> new HashSet<>()).add(updated.getPackageName());
+                changedClasses.add(updated.getFullyQualifiedName());
+            }
+        }
+        for (Path file : removed) {
+            JavaClassDoc previous = model.remove(file);
+            String module = moduleOf(file, root, modules);
+            affectedPackages.computeIfAbsent(module, k -> new HashSet<>()).add(previous.getPackageName());
+            changedClasses.add(previous.getFullyQualifiedName());
+            deletePage(moduleOutputPath(outputPath, module, modules).resolve("api").resolve(previous.getName() + ".md"));
+            surfaceChanged = true;
+        }
+
+        Map<String, List<JavaClassDoc>> classesByModule = classesByModule(root, modules, model);
+        Map<String, List<ClassGroup>> groupsByModule = groupsByModule(classesByModule);
+
+        TaskGraphScheduler graph = new TaskGraphScheduler("watch", concurrency);
+        Map<String, List<String>> classTasks = new HashMap<>();
+        for (Map.Entry<String, List<ClassGroup>> entry : groupsByModule.entrySet()) {
+            String module = entry.getKey();
+            String taskPrefix = taskPrefix(module, modules);
+            Path moduleOutputPath = moduleOutputPath(outputPath, module, modules);
+            for (ClassGroup group : entry.getValue()) {
+                JavaClassDoc representative = group.getRepresentative();
+                String representativeName = representative.getFullyQualifiedName();
+                List<JavaClassDoc> staleMembers = group.getMembers().stream()
+                    .filter(member -> changedClasses.contains(member.getFullyQualifiedName())
+                                      || !representativeName.equals(representatives.get(member.getFullyQualifiedName())))
+                    .collect(Collectors.toList());
+                boolean representativeChanged = changedClasses.contains(representativeName)
+                                                || !representativeName.equals(representatives.get(representativeName));
+                if (representativeChanged) {
+                    // The representative's page is generated again and every member's page is derived from it
+                    String taskId = taskService.addClassTask(graph, taskPrefix, group, moduleOutputPath);
+                    classTasks.computeIfAbsent(module + "\n" + representative.getPackageName(), k -> new ArrayList<>()).add(taskId);
+                } else {
+                    Path representativeDoc = moduleOutputPath.resolve("api").resolve(representative.getName() + ".md");
+                    for (JavaClassDoc member : staleMembers) {
+                        String taskId = taskPrefix + "derived:" + member.getFullyQualifiedName();
+                        graph.addTask(taskId, 1, List.of(), () -> deduplicationService.writeDerivedDocumentation(
+                            representative, representativeDoc, member, representativeDoc.resolveSibling(member.getName() + ".md")));
+                        classTasks.computeIfAbsent(module + "\n" + member.getPackageName(), k -> new ArrayList<>()).add(taskId);
+                    }
+                }
+            }
+        }
+        representatives.clear();
+        groupsByModule.values().forEach(this::rememberRepresentatives);
+        for (Map.Entry<String, Set<String>> entry : affectedPackages.entrySet()) {
+            String module = entry.getKey();
+            Path moduleOutputPath = moduleOutputPath(outputPath, module, modules);
+            for (String packageName : entry.getValue()) {
+                List<JavaClassDoc> packageClasses = classesByModule.getOrDefault(module, List.of()).stream()
+                    .filter(classDoc -> classDoc.getPackageName().equals(packageName))
+                    .collect(Collectors.toList());
+                if (packageClasses.isEmpty()) {
+                    deletePage(moduleOutputPath.resolve("packages").resolve((packageName.isEmpty() ? "default" : packageName) + ".md"));
+                    continue;
+                }
+                taskService.addPackageSummaryTask(graph, taskPrefix(module, modules), packageName, packageClasses,
+                    classTasks.getOrDefault(module + "\n" + packageName, List.of()), moduleOutputPath);
+            }
+        }
+        if (surfaceChanged) {
+            List<JavaClassDoc> allClasses = new ArrayList<>(model.values());
+            for (String module : affectedPackages.keySet()) {
+                taskService.addProjectOverviewTask(graph, taskPrefix(module, modules),
+                    modules.isEmpty() ? repositoryName : repositoryName + "/" + module,
+                    classesByModule.getOrDefault(module, List.of()), moduleOutputPath(outputPath, module, modules));
+            }
+            taskService.addGuideTasks(graph, allClasses, repositoryName, outputPath);
+            if (!modules.isEmpty()) {
+                graph.addTask("index", 1, List.of(),
+                    () -> generatorService.generateModuleIndex(repositoryName, classesByModule, outputPath));
+            }
+        }
+        graph.execute();
+
+        logger.info("Updated documentation for {} changed and {} removed files in {} ms{}", changed.size(), removed.size(),
+            Duration.ofNanos(System.nanoTime() - start).toMillis(), surfaceChanged ? ", including overview pages" : "");
+    }
+
+    /**
+     * Brings the set of documented files up to date with the touched files. Discovery decides what
+     * is documented, so ignore rules and generated-code checks still apply; it only runs again for
+     * files it has not judged yet, or when its earlier answers may be outdated.
+     */
+    private void updateDocumentedFiles(Path root, Set<Path> touched, boolean rediscover) throws IOException {
+        boolean unknownFiles = touched.stream()
+            .anyMatch(file -> Files.exists(file) && !documentedFiles.contains(file) && !excludedFiles.contains(file));
+        if (rediscover || unknownFiles) {
+            List<Path> discovered = sourceDiscoveryService.discoverJavaFiles(root);
+            documentedFiles.clear();
+            discovered.forEach(file -> documentedFiles.add(file.toAbsolutePath().normalize()));
+            excludedFiles.clear();
+            touched.stream()
+                .filter(file -> Files.exists(file) && !documentedFiles.contains(file))
+                .forEach(excludedFiles::add);
+            return;
+        }
+        for (Path file : touched) {
+            if (!Files.exists(file)) {
+                documentedFiles.remove(file);
+                excludedFiles.remove(file);
+            } else if (documentedFiles.contains(file) && sourceDiscoveryService.isGenerated(file)) {
+                documentedFiles.remove(file);
+                excludedFiles.add(file);
+            }
+        }
+    }
+
+    private Map<String, List<JavaClassDoc>> classesByModule(Path root, List<BuildModule> modules, Map<Path, JavaClassDoc> model) {
+        Map<String, List<JavaClassDoc>> classesByModule = new LinkedHashMap<>();
+        model.forEach((file, classDoc) ->
+            classesByModule.computeIfAbsent(moduleOf(file, root, modules), k -> new ArrayList<>()).add(classDoc));
+        return classesByModule;
+    }
+
+    /**
+     * Groups the classes of each module the way the initial run did.
+     */
+    private Map<String, List<ClassGroup>> groupsByModule(Map<String, List<JavaClassDoc>> classesByModule) {
+        Map<String, List<ClassGroup>> groupsByModule = new LinkedHashMap<>();
+        classesByModule.forEach((module, classes) -> groupsByModule.put(module, deduplicationService.group(classes)));
+        return groupsByModule;
+    }
+
+    private void rememberRepresentatives(List<ClassGroup> groups) {
+        for (ClassGroup group : groups) {
+            String representativeName = group.getRepresentative().getFullyQualifiedName();
+            representatives.put(representativeName, representativeName);
+            group.getMembers().forEach(member -> representatives.put(member.getFullyQualifiedName(), representativeName));
+        }
+    }
+
+    /**
+     * Describes what the overview pages are built from: the class, its kind and its public members.
+     *
+     * @return Surface description, or null for a missing class
+     */
+    private String publicSurface(JavaClassDoc classDoc) {
+        if (classDoc == null) {
+            return null;
+        }
+        boolean isInterface = "INTERFACE".equals(classDoc.getType());
+        String methods = classDoc.getMethods().stream()
+            .filter(m -> m.isPublic() || isInterface)
+            .map(m -> m.getSignature())
+            .sorted()
+            .collect(Collectors.joining(";"));
+        String fields = classDoc.getFields() == null ? "" : classDoc.getFields().stream()
+            .filter(FieldDoc::isPublic)
+            .map(f -> f.getType() + " " + f.getName())
+            .sorted()
+            .collect(Collectors.joining(";"));
+        return classDoc.getFullyQualifiedName() + "|" + classDoc.getType() + "|" + classDoc.isPublic()
+            + "|" + methods + "|" + fields;
+    }
+
+    /**
+     * Adds the events of a watch key to the touched files and starts watching new directories.
+     *
+     * @return true if events were lost
+     */
+    private boolean collect(WatchKey key, WatchService watchService, Set<Path> touched, Path outputPath) throws IOException {
+        Path directory = watchedDirectories.get(key);
+        boolean overflow = false;
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                overflow = true;
+                continue;
+            }
+            if (directory == null) {
+                continue;
+            }
+            Path path = directory.resolve((Path) event.context()).toAbsolutePath().normalize();
+            if (event.kind() == StandardWatchEventKinds.ENTRY_CREATE && Files.isDirectory(path)) {
+                // Files created together with the directory produce no events of their own
+                registerTree(watchService, path, outputPath.toAbsolutePath().normalize());
+                try (var files = Files.walk(path)) {
+                    files.filter(this::isJavaFile).forEach(touched::add);
+                }
+            } else if (isJavaFile(path)) {
+                touched.add(path);
+            } else if (IGNORE_FILES.contains(path.getFileName().toString())) {
+                ignoreRulesChanged = true;
+            } else if (event.kind() == StandardWatchEventKinds.ENTRY_DELETE) {
+                // A deleted directory produces no events for the files it contained
+                documentedFiles.stream().filter(file -> file.startsWith(path)).forEach(touched::add);
+            }
+        }
+        if (!key.reset()) {
+            watchedDirectories.remove(key);
+        }
+        return overflow;
+    }
+
+    private void registerTree(WatchService watchService, Path directory, Path outputPath) throws IOException {
+        Files.walkFileTree(directory, new SimpleFileVisitor<>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
+                // Hidden directories (.git, .documentor) and the generated documentation are not sources
+                if (!dir.equals(directory) && (dir.getFileName().toString().startsWith(".") || dir.equals(outputPath))) {
+                    return FileVisitResult.SKIP_SUBTREE;
+                }
+                WatchKey key = dir.register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                    StandardWatchEventKinds.ENTRY_DELETE, StandardWatchEventKinds.ENTRY_MODIFY);
+                watchedDirectories.put(key, dir);
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+
+    private boolean isJavaFile(Path path) {
+        return path.getFileName().toString().endsWith(".java");
+    }
+
+    private String moduleOf(Path file, Path root, List<BuildModule> modules) {
+        if (modules.isEmpty()) {
+            return "";
+        }
+        Map<BuildModule, List<Path>> assigned = buildModuleService.assignFiles(modules, List.of(file), root);
+        return assigned.keySet().iterator().next().getName();
+    }
+
+    private String taskPrefix(String module, List<BuildModule> modules) {
+        return modules.isEmpty() ? "" : "module:" + module + ":";
+    }
+
+    private Path moduleOutputPath(Path outputPath, String module, List<BuildModule> modules) {
+        return modules.isEmpty() ? outputPath : outputPath.resolve("modules").resolve(module);
+    }
+
+    private void deletePage(Path page) {
+        try {
+            if (Files.deleteIfExists(page)) {
+                logger.info("Deleted {}", page);
+            }
+        } catch (IOException e) {
+            logger.warn("Could not delete {}: {}", page, e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package com.documentor.agent.util;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * Helpers for computing stable content hashes.
+ */
+public final class HashUtils {
+
+    private HashUtils() {
+    }
+
+    /**
+     * Computes the SHA-256 hash of a string.
+     *
+     * @param text Text to hash
+     * @return Lower-case hexadecimal SHA-256 digest
+     */
+    public static String sha256(String text) {
+        return sha256(text.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Computes the SHA-256 hash of a byte array.
+     *
+     * @param bytes Bytes to hash
+     * @return Lower-case hexadecimal SHA-256 digest
+     */
+    public static String sha256(byte[] bytes) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(bytes));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
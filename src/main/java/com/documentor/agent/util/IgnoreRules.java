@@ -0,0 +1,137 @@
+package com.documentor.agent.util;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * A set of .gitignore-style rules that apply to the directory they were loaded from.
+ * <p>
+ * Supports comments, negation with {@code !}, directory-only rules with a trailing slash,
+ * anchored rules containing a slash, and the {@code *}, {@code ?} and {@code **} wildcards.
+ * As in git, the last matching rule wins.
+ */
+public class IgnoreRules {
+    private final Path baseDirectory;
+    private final List<Rule> rules;
+
+    private IgnoreRules(Path baseDirectory, List<Rule> rules) {
+        this.baseDirectory = baseDirectory;
+        this.rules = rules;
+    }
+
+    /**
+     * Loads rules from an ignore file.
+     *
+     * @param ignoreFile Path to a .gitignore-style file
+     * @return Rules relative to the file's directory
+     * @throws IOException If the file cannot be read
+     */
+    public static IgnoreRules load(Path ignoreFile) throws IOException {
+        return parse(ignoreFile.getParent(), Files.readAllLines(ignoreFile, StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Parses rules from pattern lines.
+     *
+     * @param baseDirectory Directory the patterns are relative to
+     * @param lines Pattern lines in .gitignore syntax
+     * @return Parsed rules
+     */
+    public static IgnoreRules parse(Path baseDirectory, List<String> lines) {
+        List<Rule> rules = new ArrayList<>();
+        for (String rawLine : lines) {
+            String line = rawLine.strip();
+            if (line.isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+
+            boolean negated = line.startsWith("!");
+            if (negated) {
+                line = line.substring(1);
+            }
+            boolean directoryOnly = line.endsWith("/");
+            if (directoryOnly) {
+                line = line.substring(0, line.length() - 1);
+            }
+            // A slash anywhere but the end anchors the pattern to the base directory
+            boolean anchored = line.contains("/");
+            if (line.startsWith("/")) {
+                line = line.substring(1);
+            }
+            if (line.isEmpty()) {
+                continue;
+            }
+
+            rules.add(new Rule(toRegex(line, anchored), negated, directoryOnly));
+        }
+        return new IgnoreRules(baseDirectory, rules);
+    }
+
+    /**
+     * Evaluates the rules for a path below the base directory.
+     *
+     * @param path Path to evaluate
+     * @param isDirectory Whether the path is a directory
+     * @return TRUE if ignored, FALSE if explicitly re-included, or null if no rule matches
+     */
+    public Boolean match(Path path, boolean isDirectory) {
+        if (!path.startsWith(baseDirectory)) {
+            return null;
+        }
+        String relative = baseDirectory.relativize(path).toString().replace('\\', '/');
+        Boolean result = null;
+        for (Rule rule : rules) {
+            if (rule.directoryOnly && !isDirectory) {
+                continue;
+            }
+            if (rule.pattern.matcher(relative).matches()) {
+                result = !rule.negated;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Checks whether the set contains any rules.
+     *
+     * @return true if there are no rules
+     */
+    public boolean isEmpty() {
+        return rules.isEmpty();
+    }
+
+    private static Pattern toRegex(String glob, boolean anchored) {
+        StringBuilder regex = new StringBuilder();
+        if (!anchored) {
+            // Unanchored patterns match a name at any depth
+            regex.append("(?:.*/)?");
+        }
+        for (int i = 0; i < glob.length(); i++) {
+            char c = glob.charAt(i);
+            if (c == '*') {
+                if (i + 1 < glob.length() && glob.charAt(i + 1) == '*') {
+                    boolean followedBySlash = i + 2 < glob.length() && glob.charAt(i + 2) == '/';
+                    regex.append(followedBySlash ? "(?:.*/)?" : ".*");
+                    i += followedBySlash ? 2 : 1;
+                } else {
+                    regex.append("[^/]*");
+                }
+            } else if (c == '?') {
+                regex.append("[^/]");
+            } else {
+                regex.append(Pattern.quote(String.valueOf(c)));
+            }
+        }
+        // A matching directory also covers everything below it
+        regex.append("(?:/.*)?");
+        return Pattern.compile(regex.toString());
+    }
+
+    private record Rule(Pattern pattern, boolean negated, boolean directoryOnly) {
+    }
+}
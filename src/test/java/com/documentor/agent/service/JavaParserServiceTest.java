@@ -0,0 +1,77 @@
+package com.documentor.agent.service;
+
+import com.documentor.agent.model.JavaClassDoc;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+class JavaParserServiceTest {
+    private final JavaParserService parserService = new JavaParserService();
+
+    @TempDir
+    Path sourceDir;
+
+    @Test
+    void fingerprintIgnoresEntityNameCommentsAndBodies() throws Exception {
+        JavaClassDoc user = parse("UserDto.java", """
+            package a;
+
+            /** A user. */
+            public class UserDto {
+                private long userId;
+
+                public long getUserId() {
+                    return userId;
+                }
+            }
+            """);
+        JavaClassDoc order = parse("OrderDto.java", """
+            package a;
+
+            public class OrderDto {
+                private long orderId;
+
+                // Identifier of the order
+                public long getOrderId() { return this.orderId; }
+            }
+            """);
+
+        assertNotNull(user.getStructuralFingerprint());
+        assertEquals(user.getStructuralFingerprint(), order.getStructuralFingerprint());
+    }
+
+    @Test
+    void fingerprintKeepsMemberNames() throws Exception {
+        JavaClassDoc lifecycle = parse("Lifecycle.java", """
+            package a;
+
+            public class Lifecycle {
+                public void start() { }
+                public void stop() { }
+            }
+            """);
+        JavaClassDoc resource = parse("Resource.java", """
+            package a;
+
+            public class Resource {
+                public void open() { }
+                public void close() { }
+            }
+            """);
+
+        assertNotEquals(lifecycle.getStructuralFingerprint(), resource.getStructuralFingerprint());
+    }
+
+    private JavaClassDoc parse(String fileName, String source) throws Exception {
+        Path file = Files.writeString(sourceDir.resolve(fileName), source);
+        JavaClassDoc classDoc = parserService.parseJavaFile(file);
+        assertNotNull(classDoc);
+        return classDoc;
+    }
+}
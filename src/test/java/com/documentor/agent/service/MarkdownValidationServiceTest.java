@@ -0,0 +1,56 @@
+package com.documentor.agent.service;
+
+import com.documentor.agent.model.DocValidationResult;
+import com.documentor.agent.model.JavaClassDoc;
+import com.documentor.agent.model.MethodDoc;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MarkdownValidationServiceTest {
+    // No LLM is needed as long as every section is present
+    private final MarkdownValidationService service = new MarkdownValidationService(null, null);
+
+    private final JavaClassDoc classDoc = JavaClassDoc.builder()
+        .name("Cache")
+        .packageName("a")
+        .fullyQualifiedName("a.Cache")
+        .type("CLASS")
+        .methods(List.of(method("get"), method("put")))
+        .build();
+
+    @Test
+    void acceptsCompletePage() {
+        String page = "# Cache\n\n## Overview\n\nA cache.\n\n## Methods\n\n### get\n\nGets.\n\n### put\n\nPuts.\n";
+
+        assertTrue(service.validateClassDocumentation(page, classDoc).isValid());
+        assertEquals(page, service.validateAndRepair(page, classDoc));
+    }
+
+    @Test
+    void insertsMissingMethodsHeadingAboveMethodSections() {
+        String page = "# Cache\n\n## Overview\n\nA cache.\n\n### get\n\nGets.\n\n### put\n\nPuts.\n";
+
+        DocValidationResult result = service.validateClassDocumentation(page, classDoc);
+        String repaired = service.validateAndRepair(page, classDoc);
+
+        assertFalse(result.isValid());
+        assertEquals("# Cache\n\n## Overview\n\nA cache.\n\n## Methods\n\n### get\n\nGets.\n\n### put\n\nPuts.\n", repaired);
+        assertTrue(service.validateClassDocumentation(repaired, classDoc).isValid());
+    }
+
+    @Test
+    void reportsMissingMethodSections() {
+        String page = "# Cache\n\n## Overview\n\nA cache.\n\n## Methods\n\n### get\n\nGets.\n";
+
+        assertEquals(List.of("put"), service.validateClassDocumentation(page, classDoc).getMissingMethods());
+    }
+
+    private static MethodDoc method(String name) {
+        return MethodDoc.builder().name(name).isPublic(true).build();
+    }
+}
@@ -0,0 +1,78 @@
+package com.documentor.agent.service;
+
+import com.documentor.agent.config.DocumentorConfig;
+import io.github.cdimascio.dotenv.Dotenv;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SourceDiscoveryServiceTest {
+    @TempDir
+    Path repo;
+
+    private SourceDiscoveryService service() {
+        return new SourceDiscoveryService(new DocumentorConfig(
+            Dotenv.configure().directory(repo.toString()).ignoreIfMissing().load()));
+    }
+
+    @Test
+    void detectsGeneratedAnnotationOnTheTypeDeclaration() throws Exception {
+        Path qualified = write("Qualified.java",
+            "package a;\n\n@javax.annotation.processing.Generated(\"gen\")\npublic class Qualified {}\n");
+        Path imported = write("Imported.java",
+            "package a;\n\nimport jakarta.annotation.Generated;\n\n@Generated(value = \"gen\")\npublic final class Imported {}\n");
+
+        assertTrue(service().isGenerated(qualified));
+        assertTrue(service().isGenerated(imported));
+    }
+
+    @Test
+    void ignoresGeneratedAnnotationsOutsideTheTypeDeclaration() throws Exception {
+        Path entity = write("Order.java", "package a;\n\nimport org.hibernate.annotations.Generated;\n\n"
+            + "@Entity\npublic class Order {\n    @Generated\n    private Long id;\n}\n");
+        Path unimported = write("Custom.java", "package a;\n\n@Generated\npublic class Custom {}\n");
+        Path commented = write("Commented.java",
+            "package a;\n\n/** Not {@literal @}javax.annotation.Generated. */\n@Named(\"@jakarta.annotation.Generated\")\n"
+                + "public class Commented {\n    @javax.annotation.Generated(\"x\")\n    void run() {}\n}\n");
+
+        assertFalse(service().isGenerated(entity));
+        assertFalse(service().isGenerated(unimported));
+        assertFalse(service().isGenerated(commented));
+    }
+
+    @Test
+    void detectsGeneratedHeaderComment() throws Exception {
+        Path generated = write("Stub.java", "// Code generated by protoc. DO NOT EDIT.\npackage a;\n\npublic class Stub {}\n");
+
+        assertTrue(service().isGenerated(generated));
+    }
+
+    @Test
+    void keepsTestNamedMainSourcesAndSkipsTestSources() throws Exception {
+        write("src/main/java/a/Test.java", "package a;\n\npublic @interface Test {}\n");
+        write("src/main/java/a/LoadTest.java", "package a;\n\npublic class LoadTest {}\n");
+        write("src/main/java/a/RetryIT.java", "package a;\n\npublic class RetryIT {}\n");
+        write("src/test/java/a/LoadTestTest.java", "package a;\n\nclass LoadTestTest {}\n");
+        write("lib/a/HelperTest.java", "package a;\n\nclass HelperTest {}\n");
+
+        List<String> names = service().discoverJavaFiles(repo).stream()
+            .map(file -> file.getFileName().toString())
+            .sorted()
+            .toList();
+
+        assertEquals(List.of("LoadTest.java", "RetryIT.java", "Test.java"), names);
+    }
+
+    private Path write(String relativePath, String content) throws Exception {
+        Path file = repo.resolve(relativePath);
+        Files.createDirectories(file.getParent());
+        return Files.writeString(file, content);
+    }
+}
@@ -0,0 +1,85 @@
+package com.documentor.agent.service;
+
+import com.documentor.agent.model.ClassGroup;
+import com.documentor.agent.model.JavaClassDoc;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class StructuralDeduplicationServiceTest {
+    private final StructuralDeduplicationService service = new StructuralDeduplicationService(true);
+
+    @TempDir
+    Path outputDir;
+
+    @Test
+    void groupsClassesOfTheSameShape() {
+        List<ClassGroup> groups = service.group(List.of(
+            classDoc("a", "UserDto", "shape", "userId"),
+            classDoc("a", "OrderDto", "shape", "orderId")));
+
+        assertEquals(1, groups.size());
+        assertEquals("a.OrderDto", groups.get(0).getRepresentative().getFullyQualifiedName());
+        assertEquals(List.of("a.UserDto"), groups.get(0).getMembers().stream()
+            .map(JavaClassDoc::getFullyQualifiedName).toList());
+    }
+
+    @Test
+    void neverGroupsClassesWithTheSameSimpleName() {
+        List<ClassGroup> groups = service.group(List.of(
+            classDoc("b", "Messages", "shape", "text"),
+            classDoc("a", "Messages", "shape", "text"),
+            classDoc("a", "Errors", "shape", "text")));
+
+        assertEquals(2, groups.size());
+        for (ClassGroup group : groups) {
+            String representativeName = group.getRepresentative().getName();
+            assertTrue(group.getMembers().stream().noneMatch(member -> member.getName().equals(representativeName)),
+                "group of " + group.getRepresentative().getFullyQualifiedName() + " repeats its simple name");
+        }
+    }
+
+    @Test
+    void derivesPageWhenOneNameExtendsTheOther() throws Exception {
+        JavaClassDoc representative = classDoc("a", "User", "shape", "id");
+        JavaClassDoc member = classDoc("a", "UserDto", "shape", "id");
+        Path representativeDoc = outputDir.resolve("User.md");
+        Files.writeString(representativeDoc, "# User\n\nA user.\n");
+        Path memberDoc = outputDir.resolve("UserDto.md");
+
+        service.writeDerivedDocumentation(representative, representativeDoc, member, memberDoc);
+
+        String page = Files.readString(memberDoc);
+        assertTrue(page.startsWith("# UserDto"));
+        assertTrue(page.contains("](User.md)"));
+    }
+
+    @Test
+    void substitutesTheEntityStem() throws Exception {
+        JavaClassDoc representative = classDoc("a", "OrderDto", "shape", "orderId");
+        JavaClassDoc member = classDoc("a", "UserDto", "shape", "userId");
+        Path representativeDoc = outputDir.resolve("OrderDto.md");
+        Files.writeString(representativeDoc, "# OrderDto\n\nReturns the `orderId` of the order.\n");
+        Path memberDoc = outputDir.resolve("UserDto.md");
+
+        service.writeDerivedDocumentation(representative, representativeDoc, member, memberDoc);
+
+        assertEquals("# UserDto\n\nReturns the `userId` of the user.\n", Files.readString(memberDoc));
+    }
+
+    private JavaClassDoc classDoc(String packageName, String name, String fingerprint, String field) {
+        return JavaClassDoc.builder()
+            .packageName(packageName)
+            .name(name)
+            .fullyQualifiedName(packageName + "." + name)
+            .structuralFingerprint(fingerprint)
+            .declaredNames(List.of(name, field))
+            .build();
+    }
+}
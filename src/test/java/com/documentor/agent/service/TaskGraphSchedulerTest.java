@@ -0,0 +1,52 @@
+package com.documentor.agent.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TaskGraphSchedulerTest {
+    @Test
+    void runsDependenciesFirst() throws Exception {
+        List<String> order = Collections.synchronizedList(new ArrayList<>());
+        TaskGraphScheduler graph = new TaskGraphScheduler("test", 4);
+        graph.addTask("parse-a", 10, List.of(), () -> order.add("parse-a"));
+        graph.addTask("parse-b", 10, List.of(), () -> order.add("parse-b"));
+        graph.addTask("summary", 1, List.of("parse-a", "parse-b"), () -> order.add("summary"));
+
+        graph.execute();
+
+        assertEquals(3, order.size());
+        assertEquals("summary", order.get(2));
+    }
+
+    @Test
+    void skipsDependentsOfFailedTask() {
+        List<String> ran = Collections.synchronizedList(new ArrayList<>());
+        IllegalStateException cause = new IllegalStateException("broken");
+        TaskGraphScheduler graph = new TaskGraphScheduler("test", 1);
+        graph.addTask("failing", 10, List.of(), () -> {
+            throw cause;
+        });
+        graph.addTask("dependent", 5, List.of("failing"), () -> ran.add("dependent"));
+        graph.addTask("transitive", 1, List.of("dependent"), () -> ran.add("transitive"));
+
+        ExecutionException failure = assertThrows(ExecutionException.class, graph::execute);
+
+        assertEquals(cause, failure.getCause());
+        assertTrue(ran.isEmpty(), "dependents ran: " + ran);
+    }
+
+    @Test
+    void rejectsUnknownDependencies() {
+        TaskGraphScheduler graph = new TaskGraphScheduler("test", 1);
+
+        assertThrows(IllegalArgumentException.class, () -> graph.addTask("a", 1, List.of("missing"), () -> { }));
+    }
+}
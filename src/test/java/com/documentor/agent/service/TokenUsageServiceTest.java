@@ -0,0 +1,58 @@
+package com.documentor.agent.service;
+
+import com.documentor.agent.model.RenderMode;
+import dev.langchain4j.model.output.TokenUsage;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TokenUsageServiceTest {
+    @TempDir
+    Path stateDir;
+
+    @Test
+    void sharesRepositoryTotalAcrossConcurrentCalls() throws Exception {
+        Path usageFile = stateDir.resolve("usage").resolve("repo.properties");
+        TokenUsageService first = new TokenUsageService(0, 1_000_000, usageFile);
+        TokenUsageService second = new TokenUsageService(0, 1_000_000, usageFile);
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> calls = new ArrayList<>();
+            for (int i = 0; i < 100; i++) {
+                TokenUsageService service = i % 2 == 0 ? first : second;
+                calls.add(executor.submit(() -> service.record(new TokenUsage(30, 20))));
+            }
+            for (Future<?> call : calls) {
+                call.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        assertTrue(Files.readString(usageFile).contains("tokens=5000"));
+        assertTrue(first.formatReport(0).contains("50 calls, 1500 input + 1000 output = 2500 tokens"));
+    }
+
+    @Test
+    void rendersFromTemplatesOnceTheRepositoryBudgetIsSpent() {
+        Path usageFile = stateDir.resolve("repo.properties");
+        TokenUsageService earlierRun = new TokenUsageService(0, 10_000, usageFile);
+        earlierRun.record(new TokenUsage(8_000, 1_900));
+
+        TokenUsageService service = new TokenUsageService(0, 10_000, usageFile);
+        service.registerPage(500);
+
+        assertEquals(RenderMode.TEMPLATE, service.begin(500, 200));
+    }
+}
@@ -0,0 +1,41 @@
+package com.documentor.agent.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class IgnoreRulesTest {
+    private final Path base = Path.of("/repo").toAbsolutePath();
+
+    @Test
+    void lastMatchingRuleWins() {
+        IgnoreRules rules = IgnoreRules.parse(base, List.of("*.java", "!Keep.java", "# comment", "Keep*.java"));
+
+        assertEquals(Boolean.TRUE, rules.match(base.resolve("src/Drop.java"), false));
+        assertEquals(Boolean.TRUE, rules.match(base.resolve("src/Keep.java"), false));
+    }
+
+    @Test
+    void negationReincludesEarlierMatch() {
+        IgnoreRules rules = IgnoreRules.parse(base, List.of("*.java", "!Keep.java"));
+
+        assertEquals(Boolean.TRUE, rules.match(base.resolve("src/Drop.java"), false));
+        assertEquals(Boolean.FALSE, rules.match(base.resolve("src/Keep.java"), false));
+    }
+
+    @Test
+    void directoryRulesAndAnchorsOnlyMatchTheirPaths() {
+        IgnoreRules rules = IgnoreRules.parse(base, List.of("build/", "/docs/*.md", "**/gen/**"));
+
+        assertEquals(Boolean.TRUE, rules.match(base.resolve("module/build"), true));
+        assertNull(rules.match(base.resolve("module/build"), false));
+        assertEquals(Boolean.TRUE, rules.match(base.resolve("docs/index.md"), false));
+        assertNull(rules.match(base.resolve("module/docs/index.md"), false));
+        assertEquals(Boolean.TRUE, rules.match(base.resolve("a/gen/b/C.java"), false));
+        assertNull(rules.match(Path.of("/elsewhere/build").toAbsolutePath(), true));
+    }
+}